@@ -0,0 +1,137 @@
+package com.practice.journal.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.practice.journal.db.DatabaseSchema.EntryTable;
+import com.practice.journal.models.EntrySummary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the cost per row of decoding a 50k row summary cursor by looking up the column indices
+ * on every row, as the cursor wrappers used to, against the cached indices of getEntrySummary() and
+ * the reusable EntryRow of readRow(). The results are written to logcat under the
+ * EntryCursorBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EntryCursorBenchmark {
+    private static final String TAG = "EntryCursorBenchmark";
+    private static final int ROWS = 50000;
+    private static final int ROUNDS = 3;
+
+    private SQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mDatabase = SQLiteDatabase.create(null);
+        mDatabase.execSQL("CREATE TABLE " + EntryTable.NAME + " ("
+                + EntryTable.COLS.ID + " INTEGER PRIMARY KEY, "
+                + EntryTable.COLS.UUID_MSB + " INTEGER, "
+                + EntryTable.COLS.UUID_LSB + " INTEGER, "
+                + EntryTable.COLS.TITLE + " TEXT, "
+                + EntryTable.COLS.DATE + " INTEGER, "
+                + EntryTable.COLS.CONTENT + " TEXT)");
+
+        mDatabase.beginTransaction();
+        try {
+            SQLiteStatement insert = mDatabase.compileStatement("INSERT INTO " + EntryTable.NAME + " ("
+                    + EntryTable.COLS.UUID_MSB + ", " + EntryTable.COLS.UUID_LSB + ", "
+                    + EntryTable.COLS.TITLE + ", " + EntryTable.COLS.DATE + ", " + EntryTable.COLS.CONTENT
+                    + ") VALUES (?, ?, ?, ?, ?)");
+            for (int i = 0; i < ROWS; i++) {
+                UUID id = UUID.randomUUID();
+                insert.bindLong(1, id.getMostSignificantBits());
+                insert.bindLong(2, id.getLeastSignificantBits());
+                insert.bindString(3, "Entry title number " + i);
+                insert.bindLong(4, 1600000000000L + i * 60000L);
+                insert.bindString(5, "content " + i);
+                insert.executeInsert();
+            }
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void decodeSummaries() {
+        for (int round = 0; round < ROUNDS; round++) {
+            long lookup = run(new Decoder() {
+                @Override
+                public long decode(EntryCursorWrapper cursor) {
+                    // the per row column lookups of the old wrappers
+                    long rowId = cursor.getLong(cursor.getColumnIndex(EntryTable.COLS.ID));
+                    UUID id = UuidCodec.read(cursor, cursor.getColumnIndex(EntryTable.COLS.UUID_MSB),
+                            cursor.getColumnIndex(EntryTable.COLS.UUID_LSB));
+                    String title = cursor.getString(cursor.getColumnIndex(EntryTable.COLS.TITLE));
+                    Date date = new Date(cursor.getLong(cursor.getColumnIndex(EntryTable.COLS.DATE)));
+                    return new EntrySummary(rowId, id, title, date).getRowId();
+                }
+            });
+
+            long cached = run(new Decoder() {
+                @Override
+                public long decode(EntryCursorWrapper cursor) {
+                    return cursor.getEntrySummary().getRowId();
+                }
+            });
+
+            final EntryRow row = new EntryRow();
+            long reused = run(new Decoder() {
+                @Override
+                public long decode(EntryCursorWrapper cursor) {
+                    cursor.readRow(row, EntryRow.SUMMARY);
+                    return row.getRowId();
+                }
+            });
+
+            Log.i(TAG, "round " + round + ": column lookup " + lookup / ROWS + " ns/row, cached indices "
+                    + cached / ROWS + " ns/row, reused row " + reused / ROWS + " ns/row");
+        }
+    }
+
+    private interface Decoder {
+        long decode(EntryCursorWrapper cursor);
+    }
+
+    private long run(Decoder decoder) {
+        Cursor cursor = mDatabase.query(EntryTable.NAME, EntryCursorWrapper.SUMMARY_COLUMNS,
+                null, null, null, null, EntryTable.COLS.DATE);
+        EntryCursorWrapper wrapper = new EntryCursorWrapper(cursor);
+        try {
+            // fill the first window outside of the measurement
+            assertEquals(ROWS, wrapper.getCount());
+
+            long sum = 0;
+            long start = SystemClock.elapsedRealtimeNanos();
+            while (wrapper.moveToNext()) {
+                sum += decoder.decode(wrapper);
+            }
+            long time = SystemClock.elapsedRealtimeNanos() - start;
+
+            assertTrue(sum > 0);
+            return time;
+        } finally {
+            wrapper.close();
+        }
+    }
+}
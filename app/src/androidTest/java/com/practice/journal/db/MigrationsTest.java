@@ -0,0 +1,228 @@
+package com.practice.journal.db;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.practice.journal.db.DatabaseSchema.ContentChunkTable;
+import com.practice.journal.db.DatabaseSchema.EntryTable;
+import com.practice.journal.db.DatabaseSchema.UserTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Creates a database with the version 1 schema, fills it with the kinds of rows that the old
+ * versions of the app could write, and checks that every migration step up to the current version
+ * keeps all of them and their text.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationsTest {
+    private static final int LATEST_VERSION = 9;
+
+    private static final String VALID_UUID = "0f8fad5b-d9cb-469f-a165-70867728950e";
+
+    private SQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mDatabase = SQLiteDatabase.create(null);
+
+        // the tables as DatabaseOpenHelper.onCreate() makes them
+        mDatabase.execSQL("CREATE TABLE entry("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, uuid, title, date, content)");
+        mDatabase.execSQL("CREATE TABLE user("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, username, pin)");
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void keepsEntriesWithValidUuids() {
+        insertEntry(VALID_UUID, "valid", 1600000000000L, "hello world");
+
+        migrate();
+
+        Cursor cursor = mDatabase.query(EntryTable.NAME,
+                new String[] { EntryTable.COLS.ID, EntryTable.COLS.TITLE, EntryTable.COLS.DATE },
+                EntryTable.COLS.UUID_MSB + " = ? AND " + EntryTable.COLS.UUID_LSB + " = ?",
+                UuidCodec.toArgs(UUID.fromString(VALID_UUID)), null, null, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("valid", cursor.getString(1));
+            assertEquals(1600000000000L, cursor.getLong(2));
+            assertEquals("hello world", readContent(cursor.getLong(0)));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void keepsEntriesWithoutUniqueUuids() {
+        insertEntry(VALID_UUID, "first", 1L, "first content");
+        insertEntry(VALID_UUID, "duplicate", 2L, "duplicate content");
+        insertEntry(VALID_UUID.toUpperCase(), "duplicate in upper case", 3L, "upper content");
+        insertEntry("f8fad5b-d9cb-469f-a165-70867728950e", "duplicate without leading zero", 4L, "short content");
+        insertEntry(null, "no uuid", 5L, "no uuid content");
+        insertEntry("not a uuid", "invalid", 6L, "invalid content");
+
+        migrate();
+
+        assertEquals(6, DatabaseUtils.queryNumEntries(mDatabase, EntryTable.NAME));
+        assertEquals(6, countDistinctUuids());
+
+        // the first row keeps its uuid, the others are found by their new one
+        assertEquals("first", DatabaseUtils.stringForQuery(mDatabase, "SELECT " + EntryTable.COLS.TITLE
+                + " FROM " + EntryTable.NAME + " WHERE " + EntryTable.COLS.UUID_MSB + " = ? AND "
+                + EntryTable.COLS.UUID_LSB + " = ?", UuidCodec.toArgs(UUID.fromString(VALID_UUID))));
+        for (String title : Arrays.asList("duplicate", "no uuid", "invalid")) {
+            long rowId = DatabaseUtils.longForQuery(mDatabase, "SELECT " + EntryTable.COLS.ID + " FROM "
+                    + EntryTable.NAME + " WHERE " + EntryTable.COLS.TITLE + " = ?", new String[] { title });
+            assertEquals(title + " content", readContent(rowId));
+        }
+    }
+
+    @Test
+    public void keepsEntriesWithoutDate() {
+        insertEntry(VALID_UUID, "no date", null, "content");
+
+        migrate();
+
+        assertEquals(0, DatabaseUtils.longForQuery(mDatabase,
+                "SELECT " + EntryTable.COLS.DATE + " FROM " + EntryTable.NAME, null));
+    }
+
+    @Test
+    public void splitsLongContentIntoChunks() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; content.length() < ContentChunkTable.CHUNK_CHARS * 2 + 10; i++) {
+            content.append("word").append(i).append(' ');
+        }
+        insertEntry(VALID_UUID, "long", 1L, content.toString());
+
+        migrate();
+
+        long rowId = DatabaseUtils.longForQuery(mDatabase,
+                "SELECT " + EntryTable.COLS.ID + " FROM " + EntryTable.NAME, null);
+        assertEquals(3, DatabaseUtils.queryNumEntries(mDatabase, ContentChunkTable.NAME,
+                ContentChunkTable.COLS.ENTRY_ID + " = ?", new String[] { String.valueOf(rowId) }));
+        assertEquals(content.toString(), readContent(rowId));
+
+        // the content was moved out of the entry table
+        assertEquals(0, DatabaseUtils.queryNumEntries(mDatabase, EntryTable.NAME,
+                EntryTable.COLS.CONTENT + " IS NOT NULL"));
+    }
+
+    @Test
+    public void indexesTitles() {
+        insertEntry(VALID_UUID, "holiday at the beach", 1L, "sunny");
+
+        migrate();
+
+        long rowId = DatabaseUtils.longForQuery(mDatabase,
+                "SELECT " + EntryTable.COLS.ID + " FROM " + EntryTable.NAME, null);
+        assertEquals(rowId, DatabaseUtils.longForQuery(mDatabase,
+                "SELECT docid FROM entry_fts WHERE entry_fts MATCH 'beach'", null));
+
+        // the contents are no longer indexed
+        assertEquals(0, DatabaseUtils.longForQuery(mDatabase,
+                "SELECT COUNT(*) FROM entry_fts WHERE entry_fts MATCH 'sunny'", null));
+    }
+
+    @Test
+    public void keepsUsersWithoutUniqueUsernames() {
+        insertUser("user", "1111");
+        insertUser("user", "2222");
+        insertUser(null, "3333");
+
+        migrate();
+
+        assertEquals(3, DatabaseUtils.queryNumEntries(mDatabase, UserTable.NAME));
+        assertEquals(3, DatabaseUtils.longForQuery(mDatabase,
+                "SELECT COUNT(DISTINCT " + UserTable.COLS.NAME + ") FROM " + UserTable.NAME, null));
+
+        // the first user keeps its name and pin, the pin is hashed at its next login
+        assertEquals("1111", DatabaseUtils.stringForQuery(mDatabase, "SELECT " + UserTable.COLS.PIN
+                + " FROM " + UserTable.NAME + " WHERE " + UserTable.COLS.NAME + " = ?", new String[] { "user" }));
+
+        Set<String> pins = new HashSet<>();
+        Cursor cursor = mDatabase.query(UserTable.NAME, new String[] { UserTable.COLS.PIN },
+                null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                pins.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(new HashSet<>(Arrays.asList("1111", "2222", "3333")), pins);
+    }
+
+    @Test
+    public void migratesEmptyDatabase() {
+        migrate();
+
+        assertEquals(0, DatabaseUtils.queryNumEntries(mDatabase, EntryTable.NAME));
+        assertEquals(0, DatabaseUtils.queryNumEntries(mDatabase, ContentChunkTable.NAME));
+        assertEquals(0, DatabaseUtils.queryNumEntries(mDatabase, UserTable.NAME));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnknownVersion() {
+        Migrations.migrate(mDatabase, 0, LATEST_VERSION);
+    }
+
+    private void migrate() {
+        mDatabase.beginTransaction();
+        try {
+            Migrations.migrate(mDatabase, 1, LATEST_VERSION);
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+    }
+
+    private void insertEntry(String uuid, String title, Long date, String content) {
+        mDatabase.execSQL("INSERT INTO entry (uuid, title, date, content) VALUES (?, ?, ?, ?)",
+                new Object[] { uuid, title, date, content });
+    }
+
+    private void insertUser(String username, String pin) {
+        mDatabase.execSQL("INSERT INTO user (username, pin) VALUES (?, ?)", new Object[] { username, pin });
+    }
+
+    private long countDistinctUuids() {
+        return DatabaseUtils.longForQuery(mDatabase, "SELECT COUNT(*) FROM (SELECT DISTINCT "
+                + EntryTable.COLS.UUID_MSB + ", " + EntryTable.COLS.UUID_LSB + " FROM " + EntryTable.NAME + ")", null);
+    }
+
+    // the chunks are still in plain text until the first unlock encrypts them
+    private String readContent(long rowId) {
+        StringBuilder content = new StringBuilder();
+        Cursor cursor = mDatabase.query(ContentChunkTable.NAME, new String[] { ContentChunkTable.COLS.TEXT },
+                ContentChunkTable.COLS.ENTRY_ID + " = ?", new String[] { String.valueOf(rowId) },
+                null, null, ContentChunkTable.COLS.SEQ);
+        try {
+            while (cursor.moveToNext()) {
+                content.append(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.practice.journal.db;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the time per insert, update and delete of ContentValues writes, which compile their
+ * statement on every call, against the compiled statements of a StatementCache. The results are
+ * written to logcat under the StatementCacheBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatementCacheBenchmark {
+    private static final String TAG = "StatementCacheBenchmark";
+    private static final int ROWS = 5000;
+
+    private static final String INSERT_SQL = "INSERT INTO bench (id, title, content) VALUES (?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE bench SET title = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM bench WHERE id = ?";
+
+    private SQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mDatabase = SQLiteDatabase.create(null);
+        mDatabase.execSQL("CREATE TABLE bench (id INTEGER PRIMARY KEY, title TEXT, content TEXT)");
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void contentValues() {
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            ContentValues values = new ContentValues();
+            values.put("id", i);
+            values.put("title", "title " + i);
+            values.put("content", "content " + i);
+            mDatabase.insert("bench", null, values);
+        }
+        long insert = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            ContentValues values = new ContentValues();
+            values.put("title", "updated " + i);
+            mDatabase.update("bench", values, "id = ?", new String[] { String.valueOf(i) });
+        }
+        long update = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            mDatabase.delete("bench", "id = ?", new String[] { String.valueOf(i) });
+        }
+        long delete = SystemClock.elapsedRealtimeNanos() - start;
+
+        report("contentValues", insert, update, delete);
+    }
+
+    @Test
+    public void statementCache() {
+        StatementCache statements = new StatementCache(mDatabase);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            SQLiteStatement statement = statements.acquire(INSERT_SQL);
+            statement.bindLong(1, i);
+            statement.bindString(2, "title " + i);
+            statement.bindString(3, "content " + i);
+            statement.executeInsert();
+        }
+        long insert = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            SQLiteStatement statement = statements.acquire(UPDATE_SQL);
+            statement.bindString(1, "updated " + i);
+            statement.bindLong(2, i);
+            statement.executeUpdateDelete();
+        }
+        long update = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            SQLiteStatement statement = statements.acquire(DELETE_SQL);
+            statement.bindLong(1, i);
+            statement.executeUpdateDelete();
+        }
+        long delete = SystemClock.elapsedRealtimeNanos() - start;
+
+        statements.clear();
+        report("statementCache", insert, update, delete);
+    }
+
+    private void report(String name, long insert, long update, long delete) {
+        Log.i(TAG, name + ": insert " + insert / ROWS + " ns/op, update " + update / ROWS
+                + " ns/op, delete " + delete / ROWS + " ns/op");
+        assertEquals(0, DatabaseUtils.queryNumEntries(mDatabase, "bench"));
+    }
+}
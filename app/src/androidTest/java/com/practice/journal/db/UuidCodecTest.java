@@ -0,0 +1,82 @@
+package com.practice.journal.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a UUID stored by UuidCodec.put() is read back unchanged by UuidCodec.read() and is
+ * found with the arguments of UuidCodec.toArgs(), also for halves with the sign bit set.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UuidCodecTest {
+    private SQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mDatabase = SQLiteDatabase.create(null);
+        mDatabase.execSQL("CREATE TABLE item (_id INTEGER PRIMARY KEY, msb INTEGER NOT NULL, lsb INTEGER NOT NULL)");
+        mDatabase.execSQL("CREATE UNIQUE INDEX item_uuid_idx ON item (msb, lsb)");
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void roundTrip() {
+        UUID[] ids = {
+                UUID.randomUUID(),
+                new UUID(0, 0),
+                new UUID(Long.MIN_VALUE, Long.MAX_VALUE),
+                new UUID(-1, -1),
+                UUID.fromString("ffffffff-ffff-4fff-bfff-ffffffffffff")
+        };
+        for (UUID id : ids) {
+            ContentValues values = new ContentValues();
+            UuidCodec.put(values, "msb", "lsb", id);
+            mDatabase.insertOrThrow("item", null, values);
+        }
+
+        for (UUID id : ids) {
+            Cursor cursor = mDatabase.query("item", new String[] { "msb", "lsb" },
+                    "msb = ? AND lsb = ?", UuidCodec.toArgs(id), null, null, null);
+            try {
+                assertEquals(1, cursor.getCount());
+                assertTrue(cursor.moveToFirst());
+                assertEquals(id, UuidCodec.read(cursor, 0, 1));
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+
+    @Test
+    public void doesNotMatchOtherUuids() {
+        UUID id = UUID.randomUUID();
+        ContentValues values = new ContentValues();
+        UuidCodec.put(values, "msb", "lsb", id);
+        mDatabase.insertOrThrow("item", null, values);
+
+        UUID other = new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits() + 1);
+        Cursor cursor = mDatabase.query("item", new String[] { "msb", "lsb" },
+                "msb = ? AND lsb = ?", UuidCodec.toArgs(other), null, null, null);
+        try {
+            assertEquals(0, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.practice.journal.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the latency of a list query while another thread keeps committing large write
+ * transactions, once with the rollback journal and once with write-ahead logging. The median and
+ * 95th percentile latencies are written to logcat under the WalReadLatencyBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WalReadLatencyBenchmark {
+    private static final String TAG = "WalReadLatencyBenchmark";
+    private static final int ROWS = 5000;
+    private static final int READS = 200;
+    private static final String CONTENT;
+
+    static {
+        char[] content = new char[1024];
+        Arrays.fill(content, 'x');
+        CONTENT = new String(content);
+    }
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mFile = context.getDatabasePath("wal_benchmark.db");
+        mFile.getParentFile().mkdirs();
+        SQLiteDatabase.deleteDatabase(mFile);
+    }
+
+    @After
+    public void tearDown() {
+        SQLiteDatabase.deleteDatabase(mFile);
+    }
+
+    @Test
+    public void rollbackJournal() throws Exception {
+        run("rollbackJournal", new DatabaseOptions(false, DatabaseOptions.SYNCHRONOUS_FULL, 4096, 2048));
+    }
+
+    @Test
+    public void writeAheadLogging() throws Exception {
+        run("writeAheadLogging", DatabaseOptions.DEFAULT);
+    }
+
+    private void run(String name, DatabaseOptions options) throws Exception {
+        final SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(mFile, null);
+        try {
+            options.applyTo(db);
+            db.execSQL("CREATE TABLE entry (_id INTEGER PRIMARY KEY, title TEXT, date INTEGER, content TEXT)");
+            db.execSQL("CREATE INDEX entry_date_idx ON entry (date, _id)");
+            db.beginTransaction();
+            try {
+                SQLiteStatement insert = db.compileStatement("INSERT INTO entry (title, date, content) VALUES (?, ?, ?)");
+                for (int i = 0; i < ROWS; i++) {
+                    insert.bindString(1, "title " + i);
+                    insert.bindLong(2, i);
+                    insert.bindString(3, CONTENT);
+                    insert.executeInsert();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            // keep rewriting the content of every entry in long transactions, like a burst of autosaves
+            final AtomicBoolean running = new AtomicBoolean(true);
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    SQLiteStatement update = db.compileStatement("UPDATE entry SET content = ? WHERE _id = ?");
+                    int round = 0;
+                    while (running.get()) {
+                        db.beginTransaction();
+                        try {
+                            for (int i = 1; i <= ROWS; i++) {
+                                update.bindString(1, CONTENT.substring(round % 64));
+                                update.bindLong(2, i);
+                                update.executeUpdateDelete();
+                            }
+                            db.setTransactionSuccessful();
+                        } finally {
+                            db.endTransaction();
+                        }
+                        round++;
+                    }
+                }
+            }, "writer");
+            writer.start();
+
+            long[] latencies = new long[READS];
+            try {
+                for (int i = 0; i < READS; i++) {
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    Cursor cursor = db.rawQuery(
+                            "SELECT _id, title, date FROM entry ORDER BY date, _id LIMIT 50", null);
+                    try {
+                        assertEquals(50, cursor.getCount());
+                    } finally {
+                        cursor.close();
+                    }
+                    latencies[i] = SystemClock.elapsedRealtimeNanos() - start;
+                    SystemClock.sleep(5);
+                }
+            } finally {
+                running.set(false);
+                writer.join();
+            }
+
+            Arrays.sort(latencies);
+            Log.i(TAG, name + ": read p50 " + latencies[READS / 2] / 1000 + " us, p95 "
+                    + latencies[READS * 95 / 100] / 1000 + " us, max " + latencies[READS - 1] / 1000 + " us");
+        } finally {
+            db.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.practice.journal.models;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the time that encrypting the content adds to each updateEntry() and decrypting it adds
+ * to each chunk read by openContent(), for contents of typical sizes up to one full chunk,
+ * and the time of deriving the key from the pin at login. The results are written to logcat under
+ * the ContentCipherBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ContentCipherBenchmark {
+    private static final String TAG = "ContentCipherBenchmark";
+    private static final int WARMUP = 500;
+    private static final int ROUNDS = 5000;
+
+    @Before
+    public void setUp() {
+        ContentCipher.setKey(ContentCipher.newContentKey());
+    }
+
+    @After
+    public void tearDown() {
+        ContentCipher.setKey(null);
+    }
+
+    @Test
+    public void smallEntry() {
+        run("smallEntry", 512);
+    }
+
+    @Test
+    public void typicalEntry() {
+        run("typicalEntry", 2048);
+    }
+
+    @Test
+    public void fullChunk() {
+        run("fullChunk", 8192);
+    }
+
+    @Test
+    public void deriveKey() {
+        int rounds = PinHasher.DEFAULT.getRounds();
+        byte[] salt = PinHasher.newSalt();
+        long start = SystemClock.elapsedRealtimeNanos();
+        ContentCipher.deriveKey("1234", salt, rounds);
+        long derive = SystemClock.elapsedRealtimeNanos() - start;
+
+        Log.i(TAG, "deriveKey: " + rounds + " rounds in " + derive / 1000000 + " ms");
+    }
+
+    private void run(String name, int chars) {
+        char[] text = new char[chars];
+        Arrays.fill(text, 'x');
+        String content = new String(text);
+
+        // let the cipher of the thread be created and the code be compiled first
+        byte[] data = null;
+        for (int i = 0; i < WARMUP; i++) {
+            data = ContentCipher.encrypt(1, 0, content);
+            ContentCipher.decrypt(1, 0, data);
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROUNDS; i++) {
+            data = ContentCipher.encrypt(1, 0, content);
+        }
+        long encrypt = SystemClock.elapsedRealtimeNanos() - start;
+
+        String decrypted = null;
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROUNDS; i++) {
+            decrypted = ContentCipher.decrypt(1, 0, data);
+        }
+        long decrypt = SystemClock.elapsedRealtimeNanos() - start;
+
+        assertEquals(content, decrypted);
+        Log.i(TAG, name + " (" + chars + " chars): encrypt " + encrypt / ROUNDS / 1000.0
+                + " us/op, decrypt " + decrypt / ROUNDS / 1000.0 + " us/op");
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Receiver that fills the journal with generated entries, used by the benchmark module to get a
+ * journal of a known size without typing it in. It only exists in debug builds. Send it with
+ *
+ *   adb shell am broadcast -f 32 -n com.practice.journal/.debug.SeedReceiver --ei count 10000 --es pin 1234
+ *
+ * The user is registered with the given pin if there is none yet, then the given number of
+ * entries are added and the journal is locked again. The result code is the number of entries
+ * added, or 0 if the pin did not match the registered user.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.debug;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.practice.journal.db.DatabaseExecutor;
+import com.practice.journal.models.Entry;
+import com.practice.journal.models.EntryStash;
+import com.practice.journal.models.SessionManager;
+import com.practice.journal.models.User;
+import com.practice.journal.models.UserStash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class SeedReceiver extends BroadcastReceiver {
+    private static final String TAG = "SeedReceiver";
+
+    public static final String EXTRA_COUNT = "count";
+    public static final String EXTRA_PIN = "pin";
+
+    // the entries are added in transactions of this many entries
+    private static final int BATCH_SIZE = 500;
+
+    // the entries are a day apart, ending today
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // about a paragraph, the content of each entry
+    private static final String CONTENT;
+
+    static {
+        char[] words = new char[1024];
+        Arrays.fill(words, 'x');
+        for (int i = 7; i < words.length; i += 8) {
+            words[i] = ' ';
+        }
+        CONTENT = new String(words);
+    }
+
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final Context appContext = context.getApplicationContext();
+        final int count = intent.getIntExtra(EXTRA_COUNT, 1000);
+        final String pin = intent.getStringExtra(EXTRA_PIN) != null ? intent.getStringExtra(EXTRA_PIN) : "1234";
+        final PendingResult result = goAsync();
+
+        // registering and unlocking write, so the seeding runs on the write thread
+        DatabaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                SessionManager session = SessionManager.get(appContext);
+                try {
+                    UserStash users = UserStash.get(appContext);
+                    if (!users.hasUser("user")) {
+                        users.createUser(new User("user", pin));
+                        session.onRegistered();
+                    }
+                    if (!session.unlock(pin)) {
+                        Log.w(TAG, "the pin does not match the registered user");
+                        result.setResultCode(0);
+                        return;
+                    }
+
+                    EntryStash entries = EntryStash.get(appContext);
+                    long now = System.currentTimeMillis();
+                    List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+                    for (int i = 0; i < count; i++) {
+                        Entry entry = new Entry();
+                        entry.setTitle("Entry " + (i + 1));
+                        entry.setDate(new Date(now - (count - i) * DAY_MILLIS));
+                        entry.setContent(CONTENT);
+                        batch.add(entry);
+                        if (batch.size() == BATCH_SIZE || i == count - 1) {
+                            entries.addEntries(batch);
+                            batch.clear();
+                        }
+                    }
+
+                    Log.i(TAG, "added " + count + " entries");
+                    result.setResultCode(count);
+                } finally {
+                    session.lock();
+                    result.finish();
+                }
+            }
+        });
+    }
+}
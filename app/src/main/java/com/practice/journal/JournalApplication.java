@@ -0,0 +1,20 @@
+/**
+ * Application class of the journal. It starts opening the database in the background as soon as
+ * the process starts, so the first screen does not wait for it on the main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal;
+
+import android.app.Application;
+
+import com.practice.journal.db.DatabaseOpenHelper;
+
+public class JournalApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        DatabaseOpenHelper.openInBackground(this);
+    }
+}
@@ -17,6 +17,6 @@ public class JournalListActivity extends SingleFragmentActivity {
      */
     @Override
     protected Fragment createFragment() {
-        return new JournalListFragment();
+        return JournalListFragment.newInstance();
     }
 }
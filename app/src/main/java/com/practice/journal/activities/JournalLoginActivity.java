@@ -16,6 +16,11 @@ public class JournalLoginActivity extends SingleFragmentActivity {
         super.onCreate(savedInstanceState);
     }
 
+    @Override
+    protected boolean requiresUnlock() {
+        return false;
+    }
+
     /**
      * Defines the fragment that will be hosted by this activity.
      * @return The Fragment to be hosted by this activity.
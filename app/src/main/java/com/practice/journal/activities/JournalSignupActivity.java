@@ -10,6 +10,11 @@ import androidx.fragment.app.Fragment;
 import com.practice.journal.fragments.JournalSignupFragment;
 
 public class JournalSignupActivity extends SingleFragmentActivity {
+    @Override
+    protected boolean requiresUnlock() {
+        return false;
+    }
+
     /**
      * Defines the fragment that will be hosted by this activity
      * @return
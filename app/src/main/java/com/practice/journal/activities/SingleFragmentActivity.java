@@ -5,6 +5,7 @@
 
 package com.practice.journal.activities;
 
+import android.content.Intent;
 import android.os.Bundle;
 
 import androidx.annotation.Nullable;
@@ -13,11 +14,22 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 
 import com.practice.journal.R;
+import com.practice.journal.models.SessionManager;
 
 public abstract class SingleFragmentActivity extends AppCompatActivity {
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
+        // the process was restarted without a login or the session timed out. Checked before the
+        // saved fragments are restored by super.onCreate(), which would create them and let them
+        // read the entries without the content key, so the saved state is left out
+        if (requiresUnlock() && !SessionManager.get(this).isAuthenticated()) {
+            super.onCreate(null);
+            showLogin();
+            return;
+        }
+
         super.onCreate(savedInstanceState);
+
         // inflate the layout resource for this activity
         setContentView(R.layout.activity_fragment); // layout that can host a single fragment
 
@@ -36,9 +48,50 @@ public abstract class SingleFragmentActivity extends AppCompatActivity {
     }
 
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        // checked before this screen is counted, so a timeout that passed while the app was away counts
+        SessionManager session = SessionManager.get(this);
+        if (requiresUnlock() && !session.isAuthenticated()) {
+            showLogin();
+        }
+        session.onActivityStarted();
+    }
+
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        SessionManager.get(this).onActivityStopped();
+    }
+
+
+    /**
+     * Tells whether the activity needs the journal to be unlocked. If it is locked, the login
+     * screen is shown instead of the activity.
+     * @return true by default, false for the screens shown before the login.
+     */
+    protected boolean requiresUnlock() {
+        return true;
+    }
+
+
     /**
      * The subclass should define in this method the fragment that will be hosted in this single fragment activity.
      * @return The fragment to be added to the activity.
      */
     protected abstract Fragment createFragment();
+
+
+    /*
+        Replaces the screens of the app with the login screen.
+     */
+    private void showLogin() {
+        Intent intent = new Intent(this, JournalLoginActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+        finish();
+    }
 }
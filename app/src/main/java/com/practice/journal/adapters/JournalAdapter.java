@@ -0,0 +1,319 @@
+/**
+ * Adapter class for feeding a RecyclerView with JournalHolders from the loaded part of the list of
+ * entries. Each new list is diffed against the shown list on a background thread, so only the rows
+ * that changed are bound again. The rows are identified by the row id of their entry. The adapter
+ * also keeps the selected entries. All methods must be called on the main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.adapters;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.practice.journal.models.EntrySummary;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public class JournalAdapter extends RecyclerView.Adapter<JournalHolder> {
+    /**
+     * Listener for the clicks on the rows of the list.
+     */
+    public interface OnEntryClickListener {
+        /**
+         * Called when a row is clicked.
+         * @param position The adapter position of the row.
+         * @param entry The summary of the entry in the row.
+         */
+        void onEntryClick(int position, EntrySummary entry);
+
+        /**
+         * Called when a row is long clicked.
+         * @param position The adapter position of the row.
+         * @param entry The summary of the entry in the row.
+         * @return true if the long click was handled.
+         */
+        boolean onEntryLongClick(int position, EntrySummary entry);
+
+        /**
+         * Called when the edit button of a row is clicked.
+         * @param entry The summary of the entry in the row.
+         */
+        void onEditClick(EntrySummary entry);
+
+        /**
+         * Called when the delete button of a row is clicked.
+         * @param entry The summary of the entry in the row.
+         */
+        void onDeleteClick(EntrySummary entry);
+    }
+
+
+    // tells the list differ which summaries are the same entry and whether their rows need to be bound again
+    private static final DiffUtil.ItemCallback<EntrySummary> SUMMARY_DIFF = new DiffUtil.ItemCallback<EntrySummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull EntrySummary oldItem, @NonNull EntrySummary newItem) {
+            return oldItem.getRowId() == newItem.getRowId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull EntrySummary oldItem, @NonNull EntrySummary newItem) {
+            return oldItem.getDate().equals(newItem.getDate())
+                    && (oldItem.getTitle() == null ? newItem.getTitle() == null : oldItem.getTitle().equals(newItem.getTitle()));
+        }
+    };
+
+    // the latest list of summaries given to the adapter, the changes are made to copies of it
+    private List<EntrySummary> mList = new ArrayList<>();
+
+    // diffs each new list against the shown list on a background thread and then shows it, so
+    // only the rows that changed are bound again
+    private final AsyncListDiffer<EntrySummary> mDiffer = new AsyncListDiffer<>(this, SUMMARY_DIFF);
+
+    // tells whether there are entries in the database after the last entry in mList
+    private boolean mHasMore;
+
+    // the ids of the selected entries, in the order they were selected
+    private final Set<UUID> mSelected = new LinkedHashSet<>();
+
+    // true while entries are being selected, the buttons of the rows are hidden meanwhile
+    private boolean mSelecting;
+
+    // whether the dates are shown in the 24-hour format
+    private boolean mIs24HourTime;
+
+    private final OnEntryClickListener mListener;
+
+
+    /**
+     * Creates an empty adapter.
+     * @param listener Receives the clicks on the rows.
+     */
+    public JournalAdapter(OnEntryClickListener listener) {
+        mListener = listener;
+        setHasStableIds(true);
+    }
+
+
+    /**
+     * Compares two summaries in the order of the list, which is by date and then by row id. This is
+     * also the keyset used for paging through the entries.
+     * @param a The first summary.
+     * @param b The second summary.
+     * @return A negative number if a comes first, a positive number if b comes first, 0 if they are at the same place.
+     */
+    public static int compareOrder(EntrySummary a, EntrySummary b) {
+        int order = a.getDate().compareTo(b.getDate());
+        if (order == 0) {
+            order = Long.compare(a.getRowId(), b.getRowId());
+        }
+        return order;
+    }
+
+
+    // creates the view holders that the recycler view will use
+    @NonNull
+    @Override
+    public JournalHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new JournalHolder(LayoutInflater.from(parent.getContext()), parent, mListener);
+    }
+
+
+    // binds the summary at the position to the corresponding view holder upon the request of the recycler view
+    @Override
+    public void onBindViewHolder(@NonNull JournalHolder holder, int position) {
+        EntrySummary entry = getSummary(position);
+        holder.bind(entry, mSelected.contains(entry.getId()), mSelecting, mIs24HourTime);
+    }
+
+
+    // the number of items shown by this adapter
+    @Override
+    public int getItemCount() {
+        return mDiffer.getCurrentList().size();
+    }
+
+
+    // the stable id of the item, which is the row id of the entry
+    @Override
+    public long getItemId(int position) {
+        return mDiffer.getCurrentList().get(position).getRowId();
+    }
+
+
+    /**
+     * Returns the summary of the entry shown at the given position.
+     * @param position The adapter position.
+     * @return The EntrySummary shown at the position.
+     */
+    public EntrySummary getSummary(int position) {
+        return mDiffer.getCurrentList().get(position);
+    }
+
+
+    /**
+     * Returns the number of entries in the latest list, which might not be shown yet.
+     * @return the number of loaded entries.
+     */
+    public int getEntryCount() {
+        return mList.size();
+    }
+
+
+    /**
+     * Returns the last entry of the latest list, which is where the next page starts.
+     * @return the last loaded EntrySummary, or null if no entry is loaded.
+     */
+    public EntrySummary getLastEntry() {
+        return mList.isEmpty() ? null : mList.get(mList.size() - 1);
+    }
+
+
+    /**
+     * Tells whether there are more entries to be loaded after the last entry of the list.
+     * @return true if the next page should be loaded.
+     */
+    public boolean hasMore() {
+        return mHasMore;
+    }
+
+
+    /**
+     * Replaces the list of entries, only the rows that changed are updated.
+     * @param list The summaries of the entries.
+     * @param hasMore true if there are more entries to be loaded after the given list.
+     */
+    public void setList(List<EntrySummary> list, boolean hasMore) {
+        mHasMore = hasMore;
+        submit(list);
+    }
+
+
+    /**
+     * Appends the page that comes after the last entry of the list.
+     * @param page The summaries of the entries of the page.
+     * @param hasMore true if there are more entries to be loaded after the page.
+     */
+    public void appendPage(List<EntrySummary> page, boolean hasMore) {
+        List<EntrySummary> list = new ArrayList<>(mList.size() + page.size());
+        list.addAll(mList);
+        list.addAll(page);
+        mHasMore = hasMore;
+        submit(list);
+    }
+
+
+    /**
+     * Puts the summary of an added or updated entry at its place in the list, or removes the entry
+     * from the list if the summary is null. An entry that falls after the loaded part of the list
+     * is left to be loaded with its page.
+     * @param id The id of the entry.
+     * @param summary The summary of the entry, null if the entry was deleted.
+     */
+    public void putEntry(UUID id, EntrySummary summary) {
+        List<EntrySummary> list = new ArrayList<>(mList);
+        int old = indexOf(list, id);
+        if (old >= 0) {
+            list.remove(old);
+        }
+
+        int position = summary == null ? -1 : insertionPoint(list, summary);
+        if (position >= 0 && (position < list.size() || !mHasMore)) {
+            list.add(position, summary);
+        } else {
+            mSelected.remove(id);
+        }
+        submit(list);
+    }
+
+
+    /**
+     * Selects the entry at the given position if it is not selected, otherwise unselects it.
+     * @param position The adapter position of the entry.
+     */
+    public void toggleSelection(int position) {
+        UUID id = getSummary(position).getId();
+        if (!mSelected.remove(id)) {
+            mSelected.add(id);
+        }
+        notifyItemChanged(position);
+    }
+
+
+    /**
+     * Returns the ids of the selected entries.
+     * @return the selected ids, in the order they were selected.
+     */
+    public Set<UUID> getSelected() {
+        return mSelected;
+    }
+
+
+    /**
+     * Starts or ends selecting entries. The buttons of the rows are hidden while selecting, and
+     * the selection is cleared when it ends.
+     * @param selecting true while entries are being selected.
+     */
+    public void setSelecting(boolean selecting) {
+        mSelecting = selecting;
+        if (!selecting) {
+            mSelected.clear();
+        }
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+
+    /**
+     * Sets whether the dates are shown in the 24-hour format, the rows are bound again if it changed.
+     * @param is24HourTime true for the 24-hour format.
+     */
+    public void set24HourTime(boolean is24HourTime) {
+        if (mIs24HourTime != is24HourTime) {
+            mIs24HourTime = is24HourTime;
+            notifyItemRangeChanged(0, getItemCount());
+        }
+    }
+
+
+    // shows the given list, the rows are updated once it has been diffed against the shown list
+    private void submit(List<EntrySummary> list) {
+        mList = list;
+        mDiffer.submitList(list);
+    }
+
+
+    // returns the position of the entry with the given id in the list, or -1 if it is not loaded
+    private static int indexOf(List<EntrySummary> list, UUID id) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    // returns the position where the summary belongs in the list, which is ordered by date and row id
+    private static int insertionPoint(List<EntrySummary> list, EntrySummary summary) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareOrder(list.get(middle), summary) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * ViewHolder class that inflates the Views that will be shown by the RecyclerView for an entry.
+ * This class essentially defines the views inflated in the list_item_entry.xml
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageButton;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.practice.journal.R;
+import com.practice.journal.models.EntrySummary;
+import com.practice.journal.utils.JournalUtil;
+
+public class JournalHolder extends RecyclerView.ViewHolder {
+    private TextView mTitleTextView;
+    private TextView mDateTextView;
+    private ImageButton mEditButton;
+    private ImageButton mDeleteButton;
+    private EntrySummary mEntry;
+
+    /**
+     * Inflates the row of an entry.
+     * @param inflater The layout inflater.
+     * @param parent The RecyclerView that the row is shown in.
+     * @param listener Receives the clicks on the row and its buttons.
+     */
+    public JournalHolder(LayoutInflater inflater, ViewGroup parent, final JournalAdapter.OnEntryClickListener listener) {
+        // inflate the layout. The root view can be found in the ViewHolder member field named itemView
+        super(inflater.inflate(R.layout.list_item_entry, parent, false));
+
+        // get references to the text view
+        mTitleTextView = itemView.findViewById(R.id.entry_title);
+        mDateTextView = itemView.findViewById(R.id.entry_date);
+        mEditButton = itemView.findViewById(R.id.edit_button);
+        mDeleteButton = itemView.findViewById(R.id.delete_button);
+
+        // set the click listeners to the buttons
+        mEditButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                listener.onEditClick(mEntry);
+            }
+        });
+
+        mDeleteButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                listener.onDeleteClick(mEntry);
+            }
+        });
+
+        // set the click listener for when this ViewHolder is clicked
+        itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                listener.onEntryClick(getAdapterPosition(), mEntry);
+            }
+        });
+
+        // long clicking an entry starts selecting entries
+        itemView.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                return listener.onEntryLongClick(getAdapterPosition(), mEntry);
+            }
+        });
+    }
+
+
+    /**
+     * Called by the adapter to fill the data in this ViewHolder.
+     * @param entry The summary of the entry.
+     * @param selected true if the entry is selected.
+     * @param selecting true while entries are being selected, the buttons are hidden meanwhile.
+     * @param is24HourTime true if the date is shown in the 24-hour format.
+     */
+    public void bind(EntrySummary entry, boolean selected, boolean selecting, boolean is24HourTime) {
+        mEntry = entry;
+        mTitleTextView.setText(mEntry.getTitle());
+
+        // the selected entries are highlighted
+        itemView.setActivated(selected);
+        int buttonVisibility = selecting ? View.INVISIBLE : View.VISIBLE;
+        mEditButton.setVisibility(buttonVisibility);
+        mDeleteButton.setVisibility(buttonVisibility);
+
+        // format the date string before showing to the list
+        String dateTimeString = JournalUtil.formatDateTime(mEntry.getDate(), is24HourTime);
+        mDateTextView.setText(dateTimeString);
+    }
+}
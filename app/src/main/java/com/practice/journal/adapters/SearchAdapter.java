@@ -0,0 +1,89 @@
+/**
+ * Adapter class for feeding a RecyclerView with the results of a search of the journal.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.adapters;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.practice.journal.models.SearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchAdapter extends RecyclerView.Adapter<SearchHolder> {
+    /**
+     * Listener for the clicks on the search results.
+     */
+    public interface OnResultClickListener {
+        /**
+         * Called when a search result is clicked.
+         * @param result The clicked result.
+         */
+        void onResultClick(SearchResult result);
+    }
+
+
+    // the results of the latest search
+    private List<SearchResult> mResults = new ArrayList<>();
+
+    // whether the dates are shown in the 24-hour format
+    private boolean mIs24HourTime;
+
+    private final OnResultClickListener mListener;
+
+
+    /**
+     * Creates an adapter without results.
+     * @param listener Receives the clicks on the results.
+     * @param is24HourTime true if the dates are shown in the 24-hour format.
+     */
+    public SearchAdapter(OnResultClickListener listener, boolean is24HourTime) {
+        mListener = listener;
+        mIs24HourTime = is24HourTime;
+    }
+
+
+    @NonNull
+    @Override
+    public SearchHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new SearchHolder(LayoutInflater.from(parent.getContext()), parent, mListener);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SearchHolder holder, int position) {
+        holder.bind(mResults.get(position), mIs24HourTime);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mResults.size();
+    }
+
+
+    /**
+     * Shows the given results in place of the ones shown before.
+     * @param results The results of the latest search.
+     */
+    public void setResults(List<SearchResult> results) {
+        mResults = results;
+        notifyDataSetChanged();
+    }
+
+
+    /**
+     * Sets whether the dates are shown in the 24-hour format, the results are bound again if it changed.
+     * @param is24HourTime true for the 24-hour format.
+     */
+    public void set24HourTime(boolean is24HourTime) {
+        if (mIs24HourTime != is24HourTime) {
+            mIs24HourTime = is24HourTime;
+            notifyDataSetChanged();
+        }
+    }
+}
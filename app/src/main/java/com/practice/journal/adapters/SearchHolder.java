@@ -0,0 +1,56 @@
+/**
+ * ViewHolder class for a search result, defines the views inflated in list_item_search_result.xml
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.practice.journal.R;
+import com.practice.journal.models.SearchResult;
+import com.practice.journal.utils.JournalUtil;
+
+public class SearchHolder extends RecyclerView.ViewHolder {
+    private TextView mTitleTextView;
+    private TextView mDateTextView;
+    private SearchResult mResult;
+
+    /**
+     * Inflates the row of a search result.
+     * @param inflater The layout inflater.
+     * @param parent The RecyclerView that the row is shown in.
+     * @param listener Receives the clicks on the row.
+     */
+    public SearchHolder(LayoutInflater inflater, ViewGroup parent, final SearchAdapter.OnResultClickListener listener) {
+        super(inflater.inflate(R.layout.list_item_search_result, parent, false));
+
+        mTitleTextView = itemView.findViewById(R.id.result_title);
+        mDateTextView = itemView.findViewById(R.id.result_date);
+
+        itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                listener.onResultClick(mResult);
+            }
+        });
+    }
+
+
+    /**
+     * Called by the adapter to fill the data in this ViewHolder.
+     * @param result The search result.
+     * @param is24HourTime true if the date is shown in the 24-hour format.
+     */
+    public void bind(SearchResult result, boolean is24HourTime) {
+        mResult = result;
+        // only the titles are searched, so the snippet is the title with the matched words marked
+        mTitleTextView.setText(JournalUtil.highlightSnippet(result.getSnippet()));
+        mDateTextView.setText(JournalUtil.formatDateTime(result.getSummary().getDate(), is24HourTime));
+    }
+}
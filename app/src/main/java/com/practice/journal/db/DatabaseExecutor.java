@@ -0,0 +1,326 @@
+/**
+ * Class that runs the database work of the app off the main thread. Writes are queued on a single
+ * dedicated thread so they are done in the order they were submitted. Queries run on a small pool
+ * of reader threads, which the write-ahead log of the database lets run while a write commits, but
+ * each query first waits for the writes that were submitted before it so it always sees them.
+ * Results are delivered back on the main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public final class DatabaseExecutor {
+
+    /**
+     * Interface for receiving the result of a database task on the main thread.
+     * @param <T> The type of the result.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+
+    /**
+     * Handle of a submitted database task, used for cancelling it.
+     */
+    public static final class Task {
+        private volatile boolean mCancelled;
+
+        // run once when the task is cancelled, on the main thread
+        private Runnable mOnCancel;
+
+        /**
+         * Cancels the task. The work is skipped if it has not started yet and the result is never
+         * delivered to the callback. Must be called on the main thread.
+         */
+        public void cancel() {
+            mCancelled = true;
+            if (mOnCancel != null) {
+                Runnable onCancel = mOnCancel;
+                mOnCancel = null;
+                onCancel.run();
+            }
+        }
+
+        /**
+         * Returns whether the task has been cancelled.
+         * @return true if cancel() was called.
+         */
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+
+
+    // the number of threads that run queries
+    private static final int READ_THREADS = 2;
+
+    // the single database thread that does the writes, it is only kept alive while there is work to do
+    private static final ThreadPoolExecutor sExecutor = newExecutor(1, "journal-db");
+
+    // the threads that run the queries
+    private static final ThreadPoolExecutor sReadExecutor = newExecutor(READ_THREADS, "journal-db-read");
+
+    // released once the last submitted write is done, the queries submitted after it wait for it
+    private static CountDownLatch sLastWrite = new CountDownLatch(0);
+
+    // delivers the results on the main thread
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    // private constructor to avoid instantiation of this class
+    private DatabaseExecutor() {}
+
+
+    /**
+     * Runs the given work on the database thread without waiting for it, used for writes.
+     * @param work The database work.
+     */
+    public static void execute(Runnable work) {
+        write(work);
+    }
+
+
+    /**
+     * Runs the given work on the database thread and delivers its result to the callback on the
+     * main thread. Used for work that writes, such as checking a row before inserting it.
+     * @param work The database work.
+     * @param callback Receives the result of the work, may be null.
+     * @param <T> The type of the result.
+     * @return The task, which can be cancelled.
+     */
+    public static <T> Task submit(Callable<T> work, Callback<T> callback) {
+        Task task = new Task();
+        write(deliver(task, work, callback));
+        return task;
+    }
+
+
+    /**
+     * Runs the given work on the database thread and delivers its result to the callback on the
+     * main thread, unless the given owner, usually a Fragment, is destroyed first. Must be called
+     * on the main thread.
+     * @param owner The lifecycle that the task is bound to.
+     * @param work The database work.
+     * @param callback Receives the result of the work, may be null.
+     * @param <T> The type of the result.
+     * @return The task, which can be cancelled.
+     */
+    public static <T> Task submit(LifecycleOwner owner, Callable<T> work, Callback<T> callback) {
+        return submit(owner, false, work, callback);
+    }
+
+
+    /**
+     * Runs the given query on a reader thread and delivers its result to the callback on the main
+     * thread. The query does not wait for the writes submitted after it and can run while they
+     * commit, but it sees all of the writes submitted before it. The work must not write.
+     * @param work The database query.
+     * @param callback Receives the result of the query, may be null.
+     * @param <T> The type of the result.
+     * @return The task, which can be cancelled.
+     */
+    public static <T> Task submitQuery(Callable<T> work, Callback<T> callback) {
+        Task task = new Task();
+        read(deliver(task, work, callback));
+        return task;
+    }
+
+
+    /**
+     * Runs the given query on a reader thread and delivers its result to the callback on the main
+     * thread, unless the given owner, usually a Fragment, is destroyed first. Must be called on the
+     * main thread. The work must not write.
+     * @param owner The lifecycle that the task is bound to.
+     * @param work The database query.
+     * @param callback Receives the result of the query, may be null.
+     * @param <T> The type of the result.
+     * @return The task, which can be cancelled.
+     */
+    public static <T> Task submitQuery(LifecycleOwner owner, Callable<T> work, Callback<T> callback) {
+        return submit(owner, true, work, callback);
+    }
+
+
+    /*
+        Submits the work as a write or as a query and cancels it once the given owner is destroyed.
+     */
+    private static <T> Task submit(LifecycleOwner owner, boolean query, Callable<T> work, final Callback<T> callback) {
+        final Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            Task task = new Task();
+            task.cancel();
+            return task;
+        }
+
+        // cancel the task when the owner is destroyed
+        final TaskCanceller canceller = new TaskCanceller();
+        lifecycle.addObserver(canceller);
+
+        Callback<T> unbind = new Callback<T>() {
+            @Override
+            public void onResult(T result) {
+                lifecycle.removeObserver(canceller);
+                if (callback != null) {
+                    callback.onResult(result);
+                }
+            }
+        };
+        canceller.mTask = query ? submitQuery(work, unbind) : submit(work, unbind);
+
+        // stop observing the owner if the task is cancelled before its result arrives
+        canceller.mTask.mOnCancel = new Runnable() {
+            @Override
+            public void run() {
+                lifecycle.removeObserver(canceller);
+            }
+        };
+        return canceller.mTask;
+    }
+
+
+    /*
+        Queues the write on the database thread, the queries submitted after it wait until it is done.
+     */
+    private static void write(final Runnable work) {
+        final CountDownLatch done = new CountDownLatch(1);
+        synchronized (DatabaseExecutor.class) {
+            sLastWrite = done;
+            sExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        work.run();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+    }
+
+
+    /*
+        Queues the query on a reader thread once the writes submitted before it are done. Writes run
+        in order, so waiting for the last one is waiting for all of them.
+     */
+    private static void read(final Runnable work) {
+        final CountDownLatch lastWrite;
+        synchronized (DatabaseExecutor.class) {
+            lastWrite = sLastWrite;
+        }
+
+        sReadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        lastWrite.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+
+                work.run();
+            }
+        });
+    }
+
+
+    /*
+        Returns the runnable that does the work of the task and posts its result to the callback.
+     */
+    private static <T> Runnable deliver(final Task task, final Callable<T> work, final Callback<T> callback) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (task.isCancelled()) {
+                    return;
+                }
+
+                final T result = call(work);
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!task.isCancelled() && callback != null) {
+                            callback.onResult(result);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+
+    /*
+        Creates a pool of background database threads that are only kept alive while there is work to do.
+     */
+    private static ThreadPoolExecutor newExecutor(int threads, final String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        return new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                r.run();
+                            }
+                        }, name);
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+
+    /*
+        Runs the work and rethrows its exception unchecked so it is not silently lost.
+     */
+    private static <T> T call(Callable<T> work) {
+        try {
+            return work.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /*
+        Observer that cancels a task when its lifecycle owner is destroyed.
+     */
+    private static class TaskCanceller implements LifecycleObserver {
+        private Task mTask;
+
+        @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+        public void onDestroy() {
+            if (mTask != null) {
+                mTask.cancel();
+            }
+        }
+    }
+}
@@ -1,22 +1,31 @@
 /**
  * This class is an SQLiteOpenHelper that is responsible for creating, reading and updating the database.
- * This class now also maintains the single instance of the database for this application.
+ * This class now also maintains the single instance of the database for this application, and the
+ * cache of compiled statements used with it. The database uses write-ahead logging by default so
+ * that queries on the other database threads are not blocked while a write commits.
  * @author Aaron Alba
  */
 
 package com.practice.journal.db;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.practice.journal.db.DatabaseSchema.EntryTable;
 import com.practice.journal.db.DatabaseSchema.UserTable;
 
+import java.util.concurrent.Callable;
+
 public final class DatabaseOpenHelper extends SQLiteOpenHelper {
+    private static DatabaseOpenHelper sHelper;
     private static SQLiteDatabase sDatabase;
-    private static final int VERSION = 1;
+    private static DatabaseOptions sOptions = DatabaseOptions.DEFAULT;
+    private static final int VERSION = 9;
     private static final String DATABASE_NAME = "journal_database.db";
 
     /**
@@ -27,49 +36,212 @@ public final class DatabaseOpenHelper extends SQLiteOpenHelper {
         super(context, DATABASE_NAME, null, VERSION);
     }
 
+    // the compiled statements of the open database
+    private StatementCache mStatements;
+
+    // the databases older than this version can hold removed plain text in their free pages, see
+    // Migration8To9
+    private static final int COMPACT_BEFORE_VERSION = 9;
+
+    // true if the database was upgraded from before COMPACT_BEFORE_VERSION and is not yet compacted
+    private boolean mCompactPending;
+
 
     /**
      * Returns an instance of the SQLite Database for this application.
      * @param context The application context.
      * @return instance of the SQLite database.
      */
-    public static SQLiteDatabase getDatabase(Context context) {
+    public static synchronized SQLiteDatabase getDatabase(Context context) {
         if (sDatabase == null) {
             Log.d("DATABASE", "database is not yet instantiated");
-            sDatabase = new DatabaseOpenHelper(context).getWritableDatabase();
+            sHelper = new DatabaseOpenHelper(context.getApplicationContext());
+            sDatabase = sHelper.getWritableDatabase();
         }
         return sDatabase;
     }
 
 
+    /**
+     * Opens the database on the database thread without waiting for it, and then reads the tables
+     * that the first screens show on a reader thread so that their connection, schema and pages
+     * are ready. Called when the app starts, so the database is not opened on the main thread by
+     * the first screen. The work submitted afterwards waits for the database to be open, see
+     * DatabaseExecutor.
+     * @param context The application context.
+     */
+    public static void openInBackground(final Context context) {
+        final long start = SystemClock.elapsedRealtime();
+        DatabaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                getDatabase(context);
+                Log.d("DATABASE", "database opened in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            }
+        });
+
+        DatabaseExecutor.submitQuery(new Callable<Void>() {
+            @Override
+            public Void call() {
+                warmUp(getDatabase(context));
+                Log.d("DATABASE", "database ready in " + (SystemClock.elapsedRealtime() - start) + " ms");
+                return null;
+            }
+        }, null);
+    }
+
+
+    /**
+     * Sets the connection settings of the database. Must be called before the database is first
+     * opened, usually when the app starts.
+     * @param options The connection settings.
+     */
+    public static synchronized void setOptions(DatabaseOptions options) {
+        if (sDatabase != null) {
+            throw new IllegalStateException("The database is already open");
+        }
+        sOptions = options;
+    }
+
+
+    /**
+     * Returns the cache of compiled statements for the SQLite Database of this application.
+     * @param context The application context.
+     * @return the statement cache of the database.
+     */
+    public static synchronized StatementCache getStatements(Context context) {
+        getDatabase(context);
+        return sHelper.mStatements;
+    }
+
+
+    /*
+        Runs the queries of the login and of the first page of the list once, which loads the
+        schema into the connection and the pages they read into the caches.
+     */
+    private static void warmUp(SQLiteDatabase db) {
+        DatabaseUtils.queryNumEntries(db, UserTable.NAME);
+
+        Cursor cursor = db.query(EntryTable.NAME, EntryCursorWrapper.SUMMARY_COLUMNS,
+                null, null, null, null,
+                EntryTable.COLS.DATE + " ASC, " + EntryTable.COLS.ID + " ASC", "50");
+        try {
+            cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
 
     /**
-     * The method to be called when the database is not yet created in the app's folder
+     * Empties the write-ahead log into the database file and truncates it, so that the log no
+     * longer holds the old copies of the pages that were written. Called after text was removed
+     * from the database, which secure_delete only overwrites in the database file. Must be called
+     * outside of a transaction, on the database thread that does the writes.
+     * @param db Reference to the database.
+     */
+    public static void checkpoint(SQLiteDatabase db) {
+        // the pragma returns a row, which execSQL() does not allow. SQLite before 3.8.8 does not
+        // know TRUNCATE and runs a passive checkpoint instead, which leaves the log to be reused
+        DatabaseUtils.longForQuery(db, "PRAGMA wal_checkpoint(TRUNCATE)", null);
+    }
+
+
+    /**
+     * Called when the database connection is being configured, before it is created or upgraded.
+     * Applies the journal mode, synchronous level, page size and cache size of the DatabaseOptions,
+     * and turns on secure_delete so that removed text is overwritten instead of only freed.
+     * @param db Reference to the database.
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        sOptions.applyTo(db);
+
+        // only needed on the primary connection, which is the one that does the writes
+        DatabaseUtils.longForQuery(db, "PRAGMA secure_delete = ON", null);
+    }
+
+
+    /**
+     * Called when the database has been opened, creates the statement cache for it. A database
+     * that was upgraded from before COMPACT_BEFORE_VERSION is rebuilt first, which can not be done
+     * in the transaction of the upgrade.
+     * @param db Reference to the database.
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (mCompactPending) {
+            mCompactPending = false;
+            long start = SystemClock.elapsedRealtime();
+            db.execSQL("VACUUM");
+            checkpoint(db);
+            Log.d("DATABASE", "database compacted in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        }
+        mStatements = new StatementCache(db);
+    }
+
+
+    /**
+     * Closes the database and the compiled statements of the statement cache.
+     */
+    @Override
+    public void close() {
+        synchronized (DatabaseOpenHelper.class) {
+            if (mStatements != null) {
+                mStatements.clear();
+            }
+            super.close();
+            if (sHelper == this) {
+                sHelper = null;
+                sDatabase = null;
+            }
+        }
+    }
+
+
+
+    /**
+     * The method to be called when the database is not yet created in the app's folder. The tables
+     * are created with the version 1 schema and then brought to the current VERSION by the same
+     * migration steps that upgrade existing installs, so there is only one definition of each version.
      * @param db Reference to the database.
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
 
-        // create Entry table
-        db.execSQL("CREATE TABLE " + EntryTable.NAME + "("
+        // create Entry table (version 1)
+        db.execSQL("CREATE TABLE entry("
                 + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                + EntryTable.COLS.UUID + ", "
-                + EntryTable.COLS.TITLE + ", "
-                + EntryTable.COLS.DATE + ", "
-                + EntryTable.COLS.CONTENT
+                + "uuid, "
+                + "title, "
+                + "date, "
+                + "content"
                 + ")"
         );
 
 
-        // create User table
-        db.execSQL("CREATE TABLE " + UserTable.NAME + "("
+        // create User table (version 1)
+        db.execSQL("CREATE TABLE user("
                 + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                + UserTable.COLS.NAME + ", "
-                + UserTable.COLS.PIN + ")" );
+                + "username, "
+                + "pin)" );
+
+        // upgrade the new tables to the current version
+        Migrations.migrate(db, 1, VERSION);
     }
 
+
+    /**
+     * The method to be called when the database in the app's folder has an older version than VERSION.
+     * @param db Reference to the database.
+     * @param oldVersion The version of the database in the app's folder.
+     * @param newVersion The version that the database should be upgraded to.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // No implementation yet since there is only one version of the database
+        Migrations.migrate(db, oldVersion, newVersion);
+        mCompactPending = oldVersion < COMPACT_BEFORE_VERSION;
     }
 }
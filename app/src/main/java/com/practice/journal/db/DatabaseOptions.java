@@ -0,0 +1,119 @@
+/**
+ * Class that holds the connection settings used when the database of the app is opened: the journal
+ * mode, how often SQLite waits for the data to reach the disk, the page size and the page cache size.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+public final class DatabaseOptions {
+    /**
+     * The commits are not synced to the disk at all, the fastest but a crash of the device can corrupt the database.
+     */
+    public static final String SYNCHRONOUS_OFF = "OFF";
+
+    /**
+     * With write-ahead logging the log is only synced at checkpoints, a crash of the device can lose
+     * the last commits but never corrupts the database.
+     */
+    public static final String SYNCHRONOUS_NORMAL = "NORMAL";
+
+    /**
+     * Every commit is synced to the disk before it returns.
+     */
+    public static final String SYNCHRONOUS_FULL = "FULL";
+
+    /**
+     * The settings used unless others are given to DatabaseOpenHelper.setOptions().
+     */
+    public static final DatabaseOptions DEFAULT = new DatabaseOptions(true, SYNCHRONOUS_NORMAL, 4096, 2048);
+
+    private final boolean mWriteAheadLogging;
+    private final String mSynchronous;
+    private final int mPageSize;
+    private final int mCacheSizeKib;
+
+
+    /**
+     * Creates the connection settings.
+     * @param writeAheadLogging true to use write-ahead logging, which lets queries run while a write commits.
+     * @param synchronous One of the SYNCHRONOUS_ constants.
+     * @param pageSize The page size in bytes, a power of two from 512 to 65536. It only takes effect
+     *                 when the database file is created.
+     * @param cacheSizeKib The size of the page cache of the connection in KiB.
+     */
+    public DatabaseOptions(boolean writeAheadLogging, String synchronous, int pageSize, int cacheSizeKib) {
+        if (!SYNCHRONOUS_OFF.equals(synchronous) && !SYNCHRONOUS_NORMAL.equals(synchronous)
+                && !SYNCHRONOUS_FULL.equals(synchronous)) {
+            throw new IllegalArgumentException("Unknown synchronous level " + synchronous);
+        }
+        if (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Invalid page size " + pageSize);
+        }
+
+        mWriteAheadLogging = writeAheadLogging;
+        mSynchronous = synchronous;
+        mPageSize = pageSize;
+        mCacheSizeKib = cacheSizeKib;
+    }
+
+
+    /**
+     * Returns whether write-ahead logging is used.
+     * @return true if write-ahead logging is used.
+     */
+    public boolean isWriteAheadLogging() {
+        return mWriteAheadLogging;
+    }
+
+
+    /**
+     * Returns the synchronous level.
+     * @return one of the SYNCHRONOUS_ constants.
+     */
+    public String getSynchronous() {
+        return mSynchronous;
+    }
+
+
+    /**
+     * Returns the page size used when the database file is created.
+     * @return the page size in bytes.
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+
+    /**
+     * Returns the size of the page cache.
+     * @return the cache size in KiB.
+     */
+    public int getCacheSizeKib() {
+        return mCacheSizeKib;
+    }
+
+
+    /*
+        Applies the settings to a database that is being configured, before any table is read.
+        The page size has to be set before the journal mode since an empty database is given its
+        page size once it is switched to write-ahead logging. The pragmas run on the primary
+        connection, which is the one that does the writes.
+     */
+    void applyTo(SQLiteDatabase db) {
+        db.execSQL("PRAGMA page_size = " + mPageSize);
+        if (mWriteAheadLogging) {
+            db.enableWriteAheadLogging();
+        } else {
+            db.disableWriteAheadLogging();
+        }
+
+        // set after the journal mode since enabling it resets the synchronous level of the connection
+        db.execSQL("PRAGMA synchronous = " + mSynchronous);
+
+        // a negative cache size is in KiB instead of pages
+        db.execSQL("PRAGMA cache_size = -" + mCacheSizeKib);
+    }
+}
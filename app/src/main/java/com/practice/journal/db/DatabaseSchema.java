@@ -11,23 +11,65 @@ public final class DatabaseSchema {
     // private constructor to avoid instantiation of this class
     private DatabaseSchema() {}
 
-    // table 1 - Entry Table
+    // table 1 - Entry Table, the UUID of an entry is stored in two columns, see UuidCodec
     public static final class EntryTable {
         public static final String NAME = "entry";
         public static final class COLS {
-            public static final String UUID = "uuid";
+            public static final String ID = "_id";
+            public static final String UUID_MSB = "uuid_msb";
+            public static final String UUID_LSB = "uuid_lsb";
             public static final String TITLE = "title";
             public static final String DATE = "date";
+
+            // no longer written since the content is stored in the Content Chunk Table
             public static final String CONTENT = "content";
         }
     }
 
+    // the content of each entry split in chunks, in order of seq, see Migration4To5. The text of a
+    // chunk is stored encrypted in the data column, the text column only holds the chunks written
+    // before Migration5To6 until they are encrypted
+    public static final class ContentChunkTable {
+        public static final String NAME = "content_chunk";
+
+        // the maximum number of characters in a chunk
+        public static final int CHUNK_CHARS = 8192;
+
+        public static final class COLS {
+            public static final String ENTRY_ID = "entry_id";
+            public static final String SEQ = "seq";
+            public static final String TEXT = "text";
+            public static final String DATA = "data";
+        }
+    }
+
+    // full-text index of the titles in the Entry Table, the docid of a row is the _id of its entry
+    public static final class EntryFtsTable {
+        public static final String NAME = "entry_fts";
+        public static final class COLS {
+            public static final String DOCID = "docid";
+            public static final String TITLE = "title";
+        }
+    }
+
     // table 2 - User Table
     public static final class UserTable {
         public static final String NAME = "user";
         public static final class COLS {
             public static final String NAME = "username";
+
+            // the salted hash of the pin, see PinHasher
+            public static final String PIN_SALT = "pin_salt";
+            public static final String PIN_ROUNDS = "pin_rounds";
+            public static final String PIN_HASH = "pin_hash";
+
+            // only holds a pin stored before Migration6To7 until its user logs in again
             public static final String PIN = "pin";
+
+            // the content key wrapped with a key derived from the pin, see ContentCipher
+            public static final String KEY_SALT = "key_salt";
+            public static final String KEY_ROUNDS = "key_rounds";
+            public static final String WRAPPED_KEY = "wrapped_key";
         }
     }
 }
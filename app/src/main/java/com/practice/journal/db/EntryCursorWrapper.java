@@ -1,6 +1,6 @@
 /**
  * Class for wrapping the Cursor returned by the query to the SQLite database. This will make the
- * retrieval of the Entry object from the Cursor easier.
+ * retrieval of the EntrySummary objects from the Cursor easier.
  * @author Aaron Alba
  */
 
@@ -9,39 +9,89 @@ package com.practice.journal.db;
 import android.database.Cursor;
 import android.database.CursorWrapper;
 
-import com.practice.journal.models.Entry;
+import com.practice.journal.models.EntrySummary;
 import com.practice.journal.db.DatabaseSchema.EntryTable;
 
 import java.util.Date;
 
 public class EntryCursorWrapper extends CursorWrapper {
 
+    /**
+     * The columns needed by getEntrySummary(), used as the projection of summary queries so that
+     * the content of the entries is never read from the database.
+     */
+    public static final String[] SUMMARY_COLUMNS = {
+            EntryTable.COLS.ID,
+            EntryTable.COLS.UUID_MSB,
+            EntryTable.COLS.UUID_LSB,
+            EntryTable.COLS.TITLE,
+            EntryTable.COLS.DATE
+    };
+
+    // the indices of the columns, resolved once for the cursor, -1 for a column that is not in it
+    private final int mRowIdIndex;
+    private final int mUuidMsbIndex;
+    private final int mUuidLsbIndex;
+    private final int mTitleIndex;
+    private final int mDateIndex;
+
     /**
      * Creates a cursor wrapper.
      * @param cursor The underlying cursor to wrap.
      */
     public EntryCursorWrapper(Cursor cursor) {
         super(cursor);
+
+        mRowIdIndex = cursor.getColumnIndex(EntryTable.COLS.ID);
+        mUuidMsbIndex = cursor.getColumnIndex(EntryTable.COLS.UUID_MSB);
+        mUuidLsbIndex = cursor.getColumnIndex(EntryTable.COLS.UUID_LSB);
+        mTitleIndex = cursor.getColumnIndex(EntryTable.COLS.TITLE);
+        mDateIndex = cursor.getColumnIndex(EntryTable.COLS.DATE);
+    }
+
+
+    /**
+     * Returns an EntrySummary created from the data retrieved from this cursor. The cursor only
+     * needs the row id, uuid, title and date columns, see EntryCursorWrapper.SUMMARY_COLUMNS.
+     * @return The EntrySummary object from the cursor.
+     */
+    public EntrySummary getEntrySummary() {
+        return new EntrySummary(
+                getLong(mRowIdIndex),
+                UuidCodec.read(this, mUuidMsbIndex, mUuidLsbIndex),
+                getString(mTitleIndex),
+                new Date(getLong(mDateIndex)));
+    }
+
+
+    /**
+     * Returns the row id of the current row without reading the other columns.
+     * @return The row id of the entry.
+     */
+    public long getRowId() {
+        return getLong(mRowIdIndex);
     }
 
 
     /**
-     * Returns an Entry object created from the data retrieved from this cursor.
-     * @return The Entry object from the cursor.
+     * Reads the given columns of the current row into a reusable row holder. The columns that are
+     * not asked for are not read and keep the values of the previous row in the holder. Reading a
+     * row allocates nothing once the title buffer of the holder is big enough.
+     * @param row The holder to be filled.
+     * @param columns The EntryRow flags of the columns to be read.
      */
-    public Entry getEntry() {
-        // get the values from the cursor using the column indices
-        String titleData = getString(getColumnIndex(EntryTable.COLS.TITLE));
-        String uuidData = getString(getColumnIndex(EntryTable.COLS.UUID));
-        long dateData = getLong(getColumnIndex(EntryTable.COLS.DATE));
-        String contentData = getString(getColumnIndex(EntryTable.COLS.CONTENT));
-
-        // create the entry
-        Entry entry = new Entry(uuidData);
-        entry.setTitle(titleData);
-        entry.setDate(new Date(dateData));
-        entry.setContent(contentData);
-
-        return entry;
+    public void readRow(EntryRow row, int columns) {
+        if ((columns & EntryRow.ROW_ID) != 0) {
+            row.setRowId(getLong(mRowIdIndex));
+        }
+        if ((columns & EntryRow.UUID) != 0) {
+            row.setId(getLong(mUuidMsbIndex), getLong(mUuidLsbIndex));
+        }
+        if ((columns & EntryRow.TITLE) != 0) {
+            copyStringToBuffer(mTitleIndex, row.getTitle());
+        }
+        if ((columns & EntryRow.DATE) != 0) {
+            row.setDate(getLong(mDateIndex));
+        }
     }
 }
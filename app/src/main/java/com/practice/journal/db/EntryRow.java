@@ -0,0 +1,111 @@
+/**
+ * Class for holding the columns of one row of the entry table, filled by EntryCursorWrapper.readRow().
+ * Unlike Entry it is meant to be reused for row after row: the title is copied into a char buffer
+ * that keeps its array, and the UUID and the date are kept as numbers, so reading a row into it
+ * allocates nothing once the buffer is big enough.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.CharArrayBuffer;
+
+import java.util.UUID;
+
+public final class EntryRow {
+    /**
+     * Flag for reading the row id column.
+     */
+    public static final int ROW_ID = 1;
+
+    /**
+     * Flag for reading the two uuid columns.
+     */
+    public static final int UUID = 1 << 1;
+
+    /**
+     * Flag for reading the title column.
+     */
+    public static final int TITLE = 1 << 2;
+
+    /**
+     * Flag for reading the date column.
+     */
+    public static final int DATE = 1 << 3;
+
+    /**
+     * The flags of the columns shown in the list of entries, see EntryCursorWrapper.SUMMARY_COLUMNS.
+     */
+    public static final int SUMMARY = ROW_ID | UUID | TITLE | DATE;
+
+    private long mRowId;
+    private long mUuidMsb;
+    private long mUuidLsb;
+    private long mDate;
+    private final CharArrayBuffer mTitle = new CharArrayBuffer(64);
+
+
+    /**
+     * Returns the row id, read with the ROW_ID flag.
+     * @return the row id of the entry.
+     */
+    public long getRowId() {
+        return mRowId;
+    }
+
+
+    /**
+     * Returns the UUID of the entry, read with the UUID flag. This creates a new UUID object, use
+     * hasId() to compare it without one.
+     * @return the UUID of the entry.
+     */
+    public UUID getId() {
+        return new UUID(mUuidMsb, mUuidLsb);
+    }
+
+
+    /**
+     * Tells whether the row has the given UUID, read with the UUID flag.
+     * @param id The UUID to compare with.
+     * @return true if the row has the UUID.
+     */
+    public boolean hasId(UUID id) {
+        return id.getMostSignificantBits() == mUuidMsb && id.getLeastSignificantBits() == mUuidLsb;
+    }
+
+
+    /**
+     * Returns the date in milliseconds, read with the DATE flag.
+     * @return the date of the entry.
+     */
+    public long getDate() {
+        return mDate;
+    }
+
+
+    /**
+     * Returns the buffer holding the title, read with the TITLE flag. Only the first sizeCopied
+     * characters of its data are the title, a null title is empty.
+     * @return the title buffer, which is reused by the next row.
+     */
+    public CharArrayBuffer getTitle() {
+        return mTitle;
+    }
+
+
+    /*
+        Setters used by EntryCursorWrapper.readRow()
+     */
+    void setRowId(long rowId) {
+        mRowId = rowId;
+    }
+
+    void setId(long msb, long lsb) {
+        mUuidMsb = msb;
+        mUuidLsb = lsb;
+    }
+
+    void setDate(long date) {
+        mDate = date;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Class for a single step in upgrading the database from one schema version to the next. The
+ * steps are registered in Migrations and are run in order by the DatabaseOpenHelper, both when
+ * an existing database is upgraded and when a new database is created.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+public abstract class Migration {
+    private final int mStartVersion;
+    private final int mEndVersion;
+
+    /**
+     * Creates a migration step.
+     * @param startVersion The schema version that this step upgrades from.
+     * @param endVersion The schema version of the database after this step.
+     */
+    protected Migration(int startVersion, int endVersion) {
+        mStartVersion = startVersion;
+        mEndVersion = endVersion;
+    }
+
+
+    /**
+     * Returns the schema version that this step upgrades from.
+     * @return the start version.
+     */
+    public int getStartVersion() {
+        return mStartVersion;
+    }
+
+
+    /**
+     * Returns the schema version of the database after this step.
+     * @return the end version.
+     */
+    public int getEndVersion() {
+        return mEndVersion;
+    }
+
+
+    /**
+     * Upgrades the schema and the data of the database. This is called inside the transaction of
+     * SQLiteOpenHelper so it should not begin or end a transaction of its own.
+     * @param db The database at the start version.
+     */
+    public abstract void migrate(SQLiteDatabase db);
+}
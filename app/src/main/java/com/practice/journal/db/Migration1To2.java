@@ -0,0 +1,130 @@
+/**
+ * Migration step that gives the tables declared column types and adds the indexes used by the
+ * lookups of EntryStash and UserStash. SQLite can not change the type of an existing column, so
+ * each table is rebuilt and its rows are copied over. Rows without a uuid or username, or with one
+ * that an earlier row already has, could never be looked up on their own. They are kept under a
+ * new uuid or username so that the unique indexes can be made without losing any of them.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class Migration1To2 extends Migration {
+    private static final String TAG = "DATABASE";
+
+    Migration1To2() {
+        super(1, 2);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        // rebuild the entry table with typed columns
+        db.execSQL("CREATE TABLE entry_v2 ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "uuid TEXT NOT NULL, "
+                + "title TEXT, "
+                + "date INTEGER NOT NULL DEFAULT 0, "
+                + "content TEXT)"
+        );
+        db.execSQL("INSERT INTO entry_v2 (_id, uuid, title, date, content) "
+                + "SELECT _id, uuid, title, IFNULL(date, 0), content FROM entry "
+                + "WHERE _id IN (SELECT MIN(_id) FROM entry WHERE uuid IS NOT NULL GROUP BY uuid)"
+        );
+
+        // the rows that were not copied get a new uuid, the content is still copied in SQL
+        List<Long> renamed = findUncopied(db, "entry", "entry_v2");
+        SQLiteStatement copy = db.compileStatement("INSERT INTO entry_v2 (_id, uuid, title, date, content) "
+                + "SELECT _id, ?, title, IFNULL(date, 0), content FROM entry WHERE _id = ?");
+        try {
+            for (long rowId : renamed) {
+                copy.bindString(1, UUID.randomUUID().toString());
+                copy.bindLong(2, rowId);
+                copy.executeInsert();
+            }
+        } finally {
+            copy.close();
+        }
+        if (!renamed.isEmpty()) {
+            Log.w(TAG, "gave " + renamed.size() + " entry rows without a unique uuid a new uuid");
+        }
+
+        db.execSQL("DROP TABLE entry");
+        db.execSQL("ALTER TABLE entry_v2 RENAME TO entry");
+
+        // uuid is used by every single entry lookup, date orders the list of entries
+        db.execSQL("CREATE UNIQUE INDEX entry_uuid_idx ON entry (uuid)");
+        db.execSQL("CREATE INDEX entry_date_idx ON entry (date)");
+
+
+        // rebuild the user table with typed columns
+        db.execSQL("CREATE TABLE user_v2 ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "username TEXT NOT NULL, "
+                + "pin TEXT)"
+        );
+        db.execSQL("INSERT INTO user_v2 (_id, username, pin) "
+                + "SELECT _id, username, pin FROM user "
+                + "WHERE _id IN (SELECT MIN(_id) FROM user WHERE username IS NOT NULL GROUP BY username)"
+        );
+
+        // the rows that were not copied are kept under their username followed by their row id
+        renamed = findUncopied(db, "user", "user_v2");
+        copy = db.compileStatement("INSERT INTO user_v2 (_id, username, pin) "
+                + "SELECT _id, ?, pin FROM user WHERE _id = ?");
+        try {
+            for (long rowId : renamed) {
+                String username = DatabaseUtils.stringForQuery(db,
+                        "SELECT IFNULL(username, 'user') FROM user WHERE _id = ?",
+                        new String[] { String.valueOf(rowId) });
+                do {
+                    username += "#" + rowId;
+                } while (DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM user_v2 WHERE username = ?",
+                        new String[] { username }) > 0);
+
+                copy.bindString(1, username);
+                copy.bindLong(2, rowId);
+                copy.executeInsert();
+            }
+        } finally {
+            copy.close();
+        }
+        if (!renamed.isEmpty()) {
+            Log.w(TAG, "gave " + renamed.size() + " user rows without a unique username a new username");
+        }
+
+        db.execSQL("DROP TABLE user");
+        db.execSQL("ALTER TABLE user_v2 RENAME TO user");
+
+        db.execSQL("CREATE UNIQUE INDEX user_username_idx ON user (username)");
+    }
+
+
+    /*
+        Returns the row ids of the rows of the old table that are not in the new table yet. They
+        are all read before any of them is copied, since the copies change the result of the query.
+     */
+    private static List<Long> findUncopied(SQLiteDatabase db, String oldTable, String newTable) {
+        List<Long> rowIds = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT _id FROM " + oldTable
+                + " WHERE _id NOT IN (SELECT _id FROM " + newTable + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                rowIds.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return rowIds;
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Migration step that replaces the TEXT uuid column of the entry table with the uuid_msb and
+ * uuid_lsb INTEGER columns used by UuidCodec. The rows are copied in SQL so the content never
+ * passes through Java, only the uuid strings are read back to be split into their two halves.
+ * A row whose uuid is not a valid UUID, or is the same UUID as an earlier row written another way,
+ * is kept under a new one.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+class Migration2To3 extends Migration {
+    private static final String TAG = "DATABASE";
+
+    Migration2To3() {
+        super(2, 3);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        // create the new entry table, the uuid halves are filled in below
+        db.execSQL("CREATE TABLE entry_v3 ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "uuid_msb INTEGER NOT NULL DEFAULT 0, "
+                + "uuid_lsb INTEGER NOT NULL DEFAULT 0, "
+                + "title TEXT, "
+                + "date INTEGER NOT NULL DEFAULT 0, "
+                + "content TEXT)"
+        );
+        db.execSQL("INSERT INTO entry_v3 (_id, title, date, content) "
+                + "SELECT _id, title, date, content FROM entry"
+        );
+
+        // split each uuid string into its two halves
+        SQLiteStatement update = db.compileStatement(
+                "UPDATE entry_v3 SET uuid_msb = ?, uuid_lsb = ? WHERE _id = ?");
+        Set<UUID> ids = new HashSet<>();
+        Cursor cursor = db.rawQuery("SELECT _id, uuid FROM entry", null);
+        try {
+            while (cursor.moveToNext()) {
+                long rowId = cursor.getLong(0);
+                UUID id;
+                try {
+                    id = UUID.fromString(cursor.getString(1));
+                } catch (IllegalArgumentException e) {
+                    // a row without a valid uuid could not be looked up by the app
+                    Log.w(TAG, "giving entry row " + rowId + " with an invalid uuid a new uuid");
+                    id = UUID.randomUUID();
+                }
+
+                // fromString() also accepts uuids without their leading zeros
+                if (!ids.add(id)) {
+                    Log.w(TAG, "giving entry row " + rowId + " with a duplicate uuid a new uuid");
+                    id = UUID.randomUUID();
+                    ids.add(id);
+                }
+                update.bindLong(1, id.getMostSignificantBits());
+                update.bindLong(2, id.getLeastSignificantBits());
+                update.bindLong(3, rowId);
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+
+        db.execSQL("DROP TABLE entry");
+        db.execSQL("ALTER TABLE entry_v3 RENAME TO entry");
+
+        db.execSQL("CREATE UNIQUE INDEX entry_uuid_idx ON entry (uuid_msb, uuid_lsb)");
+        db.execSQL("CREATE INDEX entry_date_idx ON entry (date)");
+    }
+}
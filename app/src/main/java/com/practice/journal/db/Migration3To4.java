@@ -0,0 +1,44 @@
+/**
+ * Migration step that adds the entry_fts full-text index over the title and content of the
+ * entries. The index is an FTS4 table with external content, so the text is stored only once in
+ * the entry table, and it is kept in sync by triggers whenever a title or a content is written.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+class Migration3To4 extends Migration {
+
+    Migration3To4() {
+        super(3, 4);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE entry_fts USING fts4(content=\"entry\", title, content)");
+
+        // the old terms of a row have to be removed from the index while the row still has them
+        db.execSQL("CREATE TRIGGER entry_fts_bu BEFORE UPDATE OF title, content ON entry BEGIN "
+                + "DELETE FROM entry_fts WHERE docid = old._id; "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER entry_fts_bd BEFORE DELETE ON entry BEGIN "
+                + "DELETE FROM entry_fts WHERE docid = old._id; "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER entry_fts_au AFTER UPDATE OF title, content ON entry BEGIN "
+                + "INSERT INTO entry_fts (docid, title, content) VALUES (new._id, new.title, new.content); "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER entry_fts_ai AFTER INSERT ON entry BEGIN "
+                + "INSERT INTO entry_fts (docid, title, content) VALUES (new._id, new.title, new.content); "
+                + "END"
+        );
+
+        // index the entries that are already in the database
+        db.execSQL("INSERT INTO entry_fts (entry_fts) VALUES ('rebuild')");
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Migration step that moves the content of the entries out of the entry table into the
+ * content_chunk table, where each content is stored as a sequence of rows of at most
+ * ContentChunkTable.CHUNK_CHARS characters. A row of the entry table no longer grows with its
+ * content, so it always fits in a cursor window, and a content can be read a chunk at a time.
+ * The full-text index now reads the content through the entry_text view, which joins the chunks
+ * of each entry back together inside SQLite. The content column of the entry table is kept but
+ * left empty since the column can not be dropped.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.practice.journal.db.DatabaseSchema.ContentChunkTable;
+
+class Migration4To5 extends Migration {
+
+    Migration4To5() {
+        super(4, 5);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        // the index is rebuilt from the chunks at the end
+        db.execSQL("DROP TRIGGER entry_fts_bu");
+        db.execSQL("DROP TRIGGER entry_fts_bd");
+        db.execSQL("DROP TRIGGER entry_fts_au");
+        db.execSQL("DROP TRIGGER entry_fts_ai");
+        db.execSQL("DROP TABLE entry_fts");
+
+        db.execSQL("CREATE TABLE content_chunk ("
+                + "entry_id INTEGER NOT NULL, "
+                + "seq INTEGER NOT NULL, "
+                + "text TEXT NOT NULL, "
+                + "PRIMARY KEY (entry_id, seq))"
+        );
+
+        // split the contents in SQL, one chunk of every entry at a time, so that a content too big
+        // for a cursor window never has to be read. substr() counts characters, not bytes, so a
+        // chunk never ends in the middle of a character.
+        SQLiteStatement copy = db.compileStatement("INSERT INTO content_chunk (entry_id, seq, text) "
+                + "SELECT _id, ?, substr(content, ?, ?) FROM entry WHERE length(content) >= ?");
+        try {
+            int copied;
+            int seq = 0;
+            do {
+                long start = (long) seq * ContentChunkTable.CHUNK_CHARS + 1;
+                copy.bindLong(1, seq);
+                copy.bindLong(2, start);
+                copy.bindLong(3, ContentChunkTable.CHUNK_CHARS);
+                copy.bindLong(4, start);
+                copied = copy.executeUpdateDelete();
+                seq++;
+            } while (copied > 0);
+        } finally {
+            copy.close();
+        }
+        db.execSQL("UPDATE entry SET content = NULL");
+
+        // the text of each entry with its chunks joined in order, the rowid column is what the
+        // full-text index looks its rows up by
+        db.execSQL("CREATE VIEW entry_text AS SELECT _id AS rowid, title, "
+                + "(SELECT group_concat(text, '') FROM "
+                + "(SELECT text FROM content_chunk WHERE entry_id = entry._id ORDER BY seq)) AS content "
+                + "FROM entry"
+        );
+        db.execSQL("CREATE VIRTUAL TABLE entry_fts USING fts4(content=\"entry_text\", title, content)");
+
+        // the terms of a deleted entry are removed while its chunks are still there, then the
+        // chunks are removed. Inserts and updates are indexed by EntryStash once the chunks of
+        // the entry are written, since a trigger on the entry table would fire before that.
+        db.execSQL("CREATE TRIGGER entry_fts_bd BEFORE DELETE ON entry BEGIN "
+                + "DELETE FROM entry_fts WHERE docid = old._id; "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER content_chunk_ad AFTER DELETE ON entry BEGIN "
+                + "DELETE FROM content_chunk WHERE entry_id = old._id; "
+                + "END"
+        );
+
+        db.execSQL("INSERT INTO entry_fts (entry_fts) VALUES ('rebuild')");
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Migration step that prepares the database for encrypting the content of the entries. Each chunk
+ * gets a data column that holds its encrypted text, while the text column is kept for the chunks
+ * that are still in plain text. The chunks can only be encrypted once the pin is known, so that
+ * is done at the first unlock after this step, see UserStash.unlockSingleUser(). The user table
+ * gets the columns that store the content key wrapped with a key derived from the pin.
+ * The full-text index would keep the words of the contents in plain text, so it is rebuilt over
+ * the titles only, which are not encrypted, and it reads them straight from the entry table again.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+class Migration5To6 extends Migration {
+
+    Migration5To6() {
+        super(5, 6);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        // dropped first since the triggers and the view refer to the tables that are replaced
+        db.execSQL("DROP TRIGGER entry_fts_bd");
+        db.execSQL("DROP TRIGGER content_chunk_ad");
+        db.execSQL("DROP TABLE entry_fts");
+        db.execSQL("DROP VIEW entry_text");
+
+        // the text column can no longer be NOT NULL, so the table is copied into a new one
+        db.execSQL("CREATE TABLE content_chunk_new ("
+                + "entry_id INTEGER NOT NULL, "
+                + "seq INTEGER NOT NULL, "
+                + "text TEXT, "
+                + "data BLOB, "
+                + "PRIMARY KEY (entry_id, seq))"
+        );
+        db.execSQL("INSERT INTO content_chunk_new (entry_id, seq, text) "
+                + "SELECT entry_id, seq, text FROM content_chunk");
+        db.execSQL("DROP TABLE content_chunk");
+        db.execSQL("ALTER TABLE content_chunk_new RENAME TO content_chunk");
+
+        db.execSQL("ALTER TABLE user ADD COLUMN key_salt BLOB");
+        db.execSQL("ALTER TABLE user ADD COLUMN key_rounds INTEGER");
+        db.execSQL("ALTER TABLE user ADD COLUMN wrapped_key BLOB");
+
+        db.execSQL("CREATE VIRTUAL TABLE entry_fts USING fts4(content=\"entry\", title)");
+
+        // the old terms of a row have to be removed from the index while the row still has them
+        db.execSQL("CREATE TRIGGER entry_fts_bu BEFORE UPDATE OF title ON entry BEGIN "
+                + "DELETE FROM entry_fts WHERE docid = old._id; "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER entry_fts_bd BEFORE DELETE ON entry BEGIN "
+                + "DELETE FROM entry_fts WHERE docid = old._id; "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER entry_fts_au AFTER UPDATE OF title ON entry BEGIN "
+                + "INSERT INTO entry_fts (docid, title) VALUES (new._id, new.title); "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER entry_fts_ai AFTER INSERT ON entry BEGIN "
+                + "INSERT INTO entry_fts (docid, title) VALUES (new._id, new.title); "
+                + "END"
+        );
+        db.execSQL("CREATE TRIGGER content_chunk_ad AFTER DELETE ON entry BEGIN "
+                + "DELETE FROM content_chunk WHERE entry_id = old._id; "
+                + "END"
+        );
+
+        db.execSQL("INSERT INTO entry_fts (entry_fts) VALUES ('rebuild')");
+    }
+}
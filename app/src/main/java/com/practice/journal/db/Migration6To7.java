@@ -0,0 +1,25 @@
+/**
+ * Migration step that adds the columns of the salted hash of the pin, see PinHasher. The pins
+ * stored before this step are left in the pin column, since they can only be hashed with the cost
+ * calibrated on the device, and each one is replaced by its hash at the next login of its user.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+class Migration6To7 extends Migration {
+
+    Migration6To7() {
+        super(6, 7);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE user ADD COLUMN pin_salt BLOB");
+        db.execSQL("ALTER TABLE user ADD COLUMN pin_rounds INTEGER");
+        db.execSQL("ALTER TABLE user ADD COLUMN pin_hash BLOB");
+    }
+}
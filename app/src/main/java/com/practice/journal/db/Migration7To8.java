@@ -0,0 +1,24 @@
+/**
+ * Migration step that replaces the index on the date of the entries with one on the (date, _id)
+ * key that the list is ordered and paged by, see EntryStash.getSummariesPage(), so the query
+ * seeks to the last entry of the previous page and reads the page in index order.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+class Migration7To8 extends Migration {
+
+    Migration7To8() {
+        super(7, 8);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        db.execSQL("DROP INDEX entry_date_idx");
+        db.execSQL("CREATE INDEX entry_date_id_idx ON entry (date, _id)");
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Migration step that clears the words that earlier steps left behind in the database file. The
+ * plain text contents that were encrypted and the full-text index of the contents that was dropped
+ * by Migration5To6 were only marked as free, so their pages still hold the text until they are
+ * reused. The index of the titles is rebuilt here so that its segments hold no removed terms, and
+ * since a VACUUM can not run inside the transaction of an upgrade, DatabaseOpenHelper rebuilds the
+ * whole file and empties the write-ahead log once the upgrade is done, see
+ * DatabaseOpenHelper.onOpen(). From this version on the database is opened with secure_delete, so
+ * the text that is removed is overwritten as it is freed.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+class Migration8To9 extends Migration {
+
+    Migration8To9() {
+        super(8, 9);
+    }
+
+
+    @Override
+    public void migrate(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO entry_fts (entry_fts) VALUES ('rebuild')");
+    }
+}
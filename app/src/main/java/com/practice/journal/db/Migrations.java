@@ -0,0 +1,65 @@
+/**
+ * Class that holds the ordered list of migration steps of the database and runs them. Each new
+ * schema version should add its Migration to STEPS and bump the VERSION in DatabaseOpenHelper.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+public final class Migrations {
+    private static final String TAG = "DATABASE";
+
+    // the migration steps in the order they are applied
+    private static final Migration[] STEPS = {
+            new Migration1To2(),
+            new Migration2To3(),
+            new Migration3To4(),
+            new Migration4To5(),
+            new Migration5To6(),
+            new Migration6To7(),
+            new Migration7To8(),
+            new Migration8To9()
+    };
+
+    // private constructor to avoid instantiation of this class
+    private Migrations() {}
+
+
+    /**
+     * Upgrades the database from one schema version to another by running each migration step in
+     * between in order.
+     * @param db The database to be upgraded.
+     * @param fromVersion The current schema version of the database.
+     * @param toVersion The schema version to upgrade to.
+     * @throws IllegalStateException if there is no migration step starting at one of the versions.
+     */
+    public static void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        int version = fromVersion;
+        while (version < toVersion) {
+            Migration step = findStep(version);
+            if (step == null) {
+                throw new IllegalStateException("No migration from database version " + version);
+            }
+
+            Log.d(TAG, "migrating database from version " + version + " to " + step.getEndVersion());
+            step.migrate(db);
+            version = step.getEndVersion();
+        }
+    }
+
+
+    /*
+        Returns the migration step that starts at the given version, or null if there is none.
+     */
+    private static Migration findStep(int version) {
+        for (Migration step : STEPS) {
+            if (step.getStartVersion() == version) {
+                return step;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Class that keeps the compiled SQLiteStatement of each fixed-shape write and lookup of the app, so
+ * that the SQL is parsed once instead of on every call, and no ContentValues has to be built. The
+ * cache belongs to the DatabaseOpenHelper and its statements are closed with the database.
+ * Each thread gets its own statements, so a statement is never bound by two threads at once and
+ * needs no lock. A shared statement would have to be locked while it waits for a connection,
+ * which deadlocks with a transaction that holds the only connection and waits for the statement
+ * when write-ahead logging is turned off.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class StatementCache {
+    private final SQLiteDatabase mDatabase;
+
+    // the statements of every thread, so they can all be closed with the database
+    private final List<Map<String, SQLiteStatement>> mAllStatements = new ArrayList<>();
+
+    // the statements of the calling thread
+    private final ThreadLocal<Map<String, SQLiteStatement>> mStatements = new ThreadLocal<Map<String, SQLiteStatement>>() {
+        @Override
+        protected Map<String, SQLiteStatement> initialValue() {
+            Map<String, SQLiteStatement> statements = new HashMap<>();
+            synchronized (mAllStatements) {
+                mAllStatements.add(statements);
+            }
+            return statements;
+        }
+    };
+
+    /**
+     * Creates an empty statement cache.
+     * @param database The database that the statements are compiled for.
+     */
+    StatementCache(SQLiteDatabase database) {
+        mDatabase = database;
+    }
+
+
+    /**
+     * Returns the compiled statement of the given SQL for the calling thread, compiling it on first
+     * use. The statement must only be used on the calling thread.
+     * @param sql The SQL of the statement, with ? for each argument.
+     * @return The compiled statement.
+     */
+    public SQLiteStatement acquire(String sql) {
+        Map<String, SQLiteStatement> statements = mStatements.get();
+
+        // only locked against clear(), the map is never used by another thread otherwise
+        synchronized (statements) {
+            SQLiteStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = mDatabase.compileStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+
+
+    /**
+     * Closes all of the compiled statements of every thread, called when the database is closed.
+     */
+    void clear() {
+        synchronized (mAllStatements) {
+            for (Map<String, SQLiteStatement> statements : mAllStatements) {
+                synchronized (statements) {
+                    for (SQLiteStatement statement : statements.values()) {
+                        statement.close();
+                    }
+                    statements.clear();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Binds a string argument that might be null, since SQLiteStatement.bindString() does not accept null.
+     * @param statement The statement to bind to.
+     * @param index The 1-based index of the argument.
+     * @param value The value of the argument.
+     */
+    public static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
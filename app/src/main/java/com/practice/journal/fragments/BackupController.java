@@ -0,0 +1,207 @@
+/**
+ * Class that runs the export and the import of the journal for a fragment. The user picks the
+ * backup file, then the backup runs on a database thread while its progress is shown in the
+ * subtitle of the toolbar, and a toast tells how it went. Only one backup runs at a time.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.fragments;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.appcompat.app.ActionBar;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.fragment.app.Fragment;
+
+import com.practice.journal.R;
+import com.practice.journal.db.DatabaseExecutor;
+import com.practice.journal.models.EntryStash;
+import com.practice.journal.models.JournalBackup;
+import com.practice.journal.models.JournalExporter;
+import com.practice.journal.models.JournalImporter;
+import com.practice.journal.models.SessionManager;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+class BackupController {
+    private static final String TAG = "BackupController";
+
+    // the fragment that picks the backup files and shows the progress
+    private final Fragment mFragment;
+
+    // the export or import that is running, null if there is none
+    private DatabaseExecutor.Task mBackupTask;
+
+    BackupController(Fragment fragment) {
+        mFragment = fragment;
+    }
+
+
+    /*
+        Lets the user pick where the backup file is written, the result is passed to export().
+     */
+    void pickExportFile(int requestCode) {
+        if (mBackupTask == null) {
+            Intent export = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            export.addCategory(Intent.CATEGORY_OPENABLE);
+            export.setType(JournalBackup.MIME_TYPE);
+            export.putExtra(Intent.EXTRA_TITLE, JournalBackup.FILE_NAME);
+            mFragment.startActivityForResult(export, requestCode);
+        }
+    }
+
+
+    /*
+        Lets the user pick the backup file, the result is passed to importFrom(). Not every
+        provider knows the gzip type.
+     */
+    void pickImportFile(int requestCode) {
+        if (mBackupTask == null) {
+            Intent open = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            open.addCategory(Intent.CATEGORY_OPENABLE);
+            open.setType("*/*");
+            mFragment.startActivityForResult(open, requestCode);
+        }
+    }
+
+
+    /*
+        Writes all of the entries to the backup file picked by the user. The export only reads the
+        database, so the list can still be used while it runs.
+     */
+    void export(final Uri uri) {
+        final Context context = mFragment.getContext().getApplicationContext();
+        final EntryStash stash = EntryStash.get(context);
+        final JournalBackup.OnProgressListener progress = newProgressListener(R.string.exporting);
+
+        showProgress(R.string.exporting, 0);
+        mBackupTask = DatabaseExecutor.submitQuery(mFragment, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                try {
+                    // "w" does not truncate on every provider, an old and longer backup would
+                    // leave its end after the new one
+                    ParcelFileDescriptor file = context.getContentResolver().openFileDescriptor(uri, "wt");
+                    if (file == null) {
+                        throw new FileNotFoundException(uri.toString());
+                    }
+                    FileChannel channel = new ParcelFileDescriptor.AutoCloseOutputStream(file).getChannel();
+                    return new JournalExporter(stash).export(channel, progress);
+                } catch (IOException e) {
+                    Log.e(TAG, "export failed", e);
+                    return null;
+                } catch (IllegalStateException e) {
+                    // the session was locked while the contents were read, or a chunk is damaged
+                    Log.e(TAG, "export failed", e);
+                    return null;
+                }
+            }
+        }, new DatabaseExecutor.Callback<Integer>() {
+            @Override
+            public void onResult(Integer count) {
+                finish(count == null ? mFragment.getString(R.string.toast_backup_failed)
+                        : mFragment.getResources().getQuantityString(R.plurals.toast_exported, count, count));
+            }
+        });
+    }
+
+
+    /*
+        Adds the entries of the backup file picked by the user. The import runs on the database
+        thread that does the writes, the list is updated by the changes that the stash publishes.
+     */
+    void importFrom(final Uri uri) {
+        final Context context = mFragment.getContext().getApplicationContext();
+        final EntryStash stash = EntryStash.get(context);
+        final JournalBackup.OnProgressListener progress = newProgressListener(R.string.importing);
+
+        showProgress(R.string.importing, 0);
+        mBackupTask = DatabaseExecutor.submit(mFragment, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                try {
+                    ParcelFileDescriptor file = context.getContentResolver().openFileDescriptor(uri, "r");
+                    if (file == null) {
+                        throw new FileNotFoundException(uri.toString());
+                    }
+                    long size = file.getStatSize();
+                    FileChannel channel = new ParcelFileDescriptor.AutoCloseInputStream(file).getChannel();
+                    return new JournalImporter(stash).importFrom(channel, size, progress);
+                } catch (IOException e) {
+                    Log.e(TAG, "import failed", e);
+                    return null;
+                } catch (IllegalStateException e) {
+                    // the session was locked while the contents were written
+                    Log.e(TAG, "import failed", e);
+                    return null;
+                }
+            }
+        }, new DatabaseExecutor.Callback<Integer>() {
+            @Override
+            public void onResult(Integer count) {
+                finish(count == null ? mFragment.getString(R.string.toast_backup_failed)
+                        : mFragment.getResources().getQuantityString(R.plurals.toast_imported, count, count));
+            }
+        });
+    }
+
+
+    /*
+        Returns a listener that shows the progress of an export or an import, which is told about
+        it on the database thread, in the subtitle of the toolbar.
+     */
+    private JournalBackup.OnProgressListener newProgressListener(final int messageId) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final SessionManager session = SessionManager.get(mFragment.getContext());
+        return new JournalBackup.OnProgressListener() {
+            @Override
+            public void onProgress(long done, long total) {
+                final int percent = total > 0 ? (int) Math.min(100, done * 100 / total) : 0;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // the journal must stay unlocked while the backup runs in the background
+                        session.touch();
+                        if (mBackupTask != null) {
+                            showProgress(messageId, percent);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+
+    /*
+        Shows the progress of an export or an import in the subtitle of the toolbar.
+     */
+    private void showProgress(int messageId, int percent) {
+        ActionBar actionBar = mFragment.isAdded() ? ((AppCompatActivity) mFragment.getActivity()).getSupportActionBar() : null;
+        if (actionBar != null) {
+            actionBar.setSubtitle(mFragment.getString(R.string.backup_progress, mFragment.getString(messageId), percent));
+        }
+    }
+
+
+    /*
+        Removes the progress of the export or the import that has finished and tells the user how it went.
+     */
+    private void finish(String message) {
+        mBackupTask = null;
+        ActionBar actionBar = ((AppCompatActivity) mFragment.getActivity()).getSupportActionBar();
+        if (actionBar != null) {
+            actionBar.setSubtitle(null);
+        }
+        Toast.makeText(mFragment.getContext(), message, Toast.LENGTH_SHORT).show();
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Class for holding what ViewerFragment and JournalFragment show first when they open an entry:
+ * the summary of the entry and the start of its content, with the reader that reads the rest of
+ * the content in steps of STEP_CHARS characters.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.fragments;
+
+import com.practice.journal.models.EntryContentReader;
+import com.practice.journal.models.EntryStash;
+import com.practice.journal.models.EntrySummary;
+
+import java.util.UUID;
+
+class ContentStart {
+    // the number of characters of the content that are read and shown at a time
+    static final int STEP_CHARS = 32 * 1024;
+
+    final EntrySummary summary;
+    final EntryContentReader reader;
+    final String text;
+
+    private ContentStart(EntrySummary summary, EntryContentReader reader, String text) {
+        this.summary = summary;
+        this.reader = reader;
+        this.text = text;
+    }
+
+
+    /*
+        Returns whether the text is the whole content, in which case there is nothing left to read.
+     */
+    boolean isComplete() {
+        return text == null || text.length() < STEP_CHARS;
+    }
+
+
+    /*
+        Reads the summary and the start of the content of an entry, or returns null if there is no
+        such entry. Must be called on a database thread.
+     */
+    static ContentStart read(EntryStash stash, UUID id) {
+        EntrySummary summary = stash.getSummary(id);
+        EntryContentReader reader = stash.openContent(id);
+        if (summary == null || reader == null) {
+            return null;
+        }
+        return new ContentStart(summary, reader, reader.readChunks(STEP_CHARS));
+    }
+}
@@ -10,6 +10,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.text.format.DateFormat;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -23,8 +24,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
+import com.practice.journal.db.DatabaseExecutor;
 import com.practice.journal.models.Entry;
+import com.practice.journal.models.EntryAutosaver;
+import com.practice.journal.models.EntryContentReader;
 import com.practice.journal.models.EntryStash;
+import com.practice.journal.models.EntrySummary;
 import com.practice.journal.utils.JournalUtil;
 import com.practice.journal.R;
 
@@ -32,6 +37,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 public class JournalFragment extends Fragment {
     private EditText mTitleField;
@@ -39,6 +45,12 @@ public class JournalFragment extends Fragment {
     private Button mTimeField;
     private EditText mContentField;
     private Entry mEntry;
+    private EntryAutosaver mAutosaver;
+
+    // the summary and the content read so far of an entry whose content is still being read, the
+    // fields can not be edited until the whole content is read and mEntry is set
+    private EntrySummary mLoadingSummary;
+    private StringBuilder mLoadingContent;
 
     private static final String ARG_ENTRY_ID = "uuid";
 
@@ -56,10 +68,38 @@ public class JournalFragment extends Fragment {
 
         // retrieve the fragment argument to get the current entry to be shown
         Bundle args = getArguments();
-        UUID id = (UUID) args.getSerializable(ARG_ENTRY_ID);
+        final UUID id = (UUID) args.getSerializable(ARG_ENTRY_ID);
 
-        // set the entry object
-        mEntry = EntryStash.get(getContext()).getEntry(id);
+        // the changes to the entry are saved in the background as the user edits
+        final EntryStash stash = EntryStash.get(getContext());
+        mAutosaver = new EntryAutosaver(stash, EntryAutosaver.DEFAULT_QUIET_PERIOD);
+
+        // load the summary and the start of the content, the fields are filled in once they arrive.
+        // The rest of a long content is read in steps and shown as it arrives.
+        DatabaseExecutor.submitQuery(this, new Callable<ContentStart>() {
+            @Override
+            public ContentStart call() {
+                return ContentStart.read(stash, id);
+            }
+        }, new DatabaseExecutor.Callback<ContentStart>() {
+            @Override
+            public void onResult(ContentStart start) {
+                // the entry might have been deleted
+                if (start == null) {
+                    return;
+                }
+
+                if (start.isComplete()) {
+                    setEntry(new Entry(start.summary, start.text));
+                    return;
+                }
+
+                mLoadingSummary = start.summary;
+                mLoadingContent = new StringBuilder(start.text);
+                bindEntry();
+                readContent(start.reader);
+            }
+        });
 
         // enable options menu in the toolbar of this activity
         setHasOptionsMenu(true);
@@ -102,14 +142,16 @@ public class JournalFragment extends Fragment {
 
         // The TitleTextField
         mTitleField = view.findViewById(R.id.title_field);
-        mTitleField.setText(mEntry.getTitle()); // set the title field from the Entry
         mTitleField.addTextChangedListener(new TextWatcher() {
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                mEntry.setTitle(s.toString());
+                if (mEntry != null) {
+                    mEntry.setTitle(s.toString());
+                    mAutosaver.markDirty();
+                }
             }
 
             @Override
@@ -120,10 +162,14 @@ public class JournalFragment extends Fragment {
 
         // The DateField
         mDateField = view.findViewById(R.id.date_field);
-        updateDateText();
         mDateField.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                // the entry is still loading
+                if (mEntry == null) {
+                    return;
+                }
+
                 // create the date picker fragment
                 DatePickerFragment dialog = DatePickerFragment.newInstance(mEntry.getDate());
 
@@ -138,10 +184,14 @@ public class JournalFragment extends Fragment {
 
         // The TimeField
         mTimeField = view.findViewById(R.id.time_field);
-        updateTimeText();
         mTimeField.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                // the entry is still loading
+                if (mEntry == null) {
+                    return;
+                }
+
                 // create the time picker fragment
                 TimePickerFragment dialog = TimePickerFragment.newInstance(mEntry.getDate());
 
@@ -156,20 +206,25 @@ public class JournalFragment extends Fragment {
 
         // The ContentField
         mContentField = view.findViewById(R.id.content_field);
-        mContentField.setText(mEntry.getContent()); // set the content field
         mContentField.addTextChangedListener(new TextWatcher() {
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                mEntry.setContent(s.toString());
+                if (mEntry != null) {
+                    mEntry.setContent(s.toString());
+                    mAutosaver.markDirty();
+                }
             }
 
             @Override
             public void afterTextChanged(Editable s) {}
         });
 
+        // fill in the fields if the entry has already been loaded
+        bindEntry();
+
         return view;
     }
 
@@ -177,15 +232,15 @@ public class JournalFragment extends Fragment {
     /**
      * This lifecycle method is called when the Fragment is removed from the viewable screen of the user.
      * When the user navigates back to the List showing the Entries on JournalListFragment, this method will
-     * be called and it is saves the changes that the user made to the Entry object that is currently being
-     * edited.
+     * be called and it saves the changes that the user made to the Entry object that is currently being
+     * edited, if there are any that were not saved yet.
      */
     @Override
     public void onPause() {
         super.onPause();
 
-        // update the entry
-        syncDatabase();
+        // save the pending changes of the entry
+        mAutosaver.flush();
     }
 
 
@@ -212,8 +267,8 @@ public class JournalFragment extends Fragment {
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
         switch (item.getItemId()) {
             case R.id.menu_done:
+                mAutosaver.flush(); // save the pending changes in the Entry to the database
                 getActivity().onBackPressed(); // simulate pressing of the back button
-                syncDatabase(); // save the changes in the Entry to the database
                 return true;
         }
 
@@ -261,8 +316,8 @@ public class JournalFragment extends Fragment {
             mEntry.setDate(date.getTime());
 
             // update the date text in the UI
-            updateDateText();
-            syncDatabase();
+            updateDateText(mEntry.getDate());
+            mAutosaver.markDirty();
 
         } else if (requestCode == REQUEST_TIME) {
 
@@ -289,19 +344,99 @@ public class JournalFragment extends Fragment {
             mEntry.setDate(date.getTime());
 
             // update the time shown in the UI
-            updateTimeText();
-            syncDatabase();
+            updateTimeText(mEntry.getDate());
+            mAutosaver.markDirty();
         }
     }
 
 
 
+    /*
+        Sets the loaded Entry that is edited and saved by this fragment and shows it.
+     */
+    private void setEntry(Entry entry) {
+        mEntry = entry;
+        mAutosaver.setEntry(entry);
+        bindEntry();
+    }
+
+
+
+    /*
+        Reads the next part of the content of the entry and appends it to the content field, until
+        the whole content is read and the Entry can be edited.
+     */
+    private void readContent(final EntryContentReader reader) {
+        DatabaseExecutor.submitQuery(this, new Callable<String>() {
+            @Override
+            public String call() {
+                return reader.readChunks(ContentStart.STEP_CHARS);
+            }
+        }, new DatabaseExecutor.Callback<String>() {
+            @Override
+            public void onResult(String text) {
+                if (text == null) {
+                    // the whole content is read
+                    reader.close();
+                    mEntry = new Entry(mLoadingSummary, mLoadingContent.toString());
+                    mAutosaver.setEntry(mEntry);
+                    mLoadingSummary = null;
+                    mLoadingContent = null;
+
+                    // the fields already show the whole entry
+                    if (mTitleField != null) {
+                        mTitleField.setEnabled(true);
+                        mContentField.setEnabled(true);
+                    }
+                    return;
+                }
+
+                mLoadingContent.append(text);
+                if (mContentField != null) {
+                    mContentField.append(text);
+                }
+                readContent(reader);
+            }
+        });
+    }
+
+
+
+    /*
+        This method fills the fields with the data of the Entry once both the Entry and the views are
+        available. While the content is still being read the fields show what was read so far and
+        can not be edited.
+     */
+    private void bindEntry() {
+        if (mTitleField == null) {
+            return;
+        }
+
+        if (mEntry != null) {
+            mTitleField.setText(mEntry.getTitle());
+            mContentField.setText(mEntry.getContent());
+            updateDateText(mEntry.getDate());
+            updateTimeText(mEntry.getDate());
+        } else if (mLoadingSummary != null) {
+            mTitleField.setText(mLoadingSummary.getTitle());
+            mContentField.setText(mLoadingContent);
+            updateDateText(mLoadingSummary.getDate());
+            updateTimeText(mLoadingSummary.getDate());
+        }
+
+        boolean loading = mEntry == null && mLoadingSummary != null;
+        mTitleField.setEnabled(!loading);
+        mContentField.setEnabled(!loading);
+    }
+
+
+
     /*
         This method rewrites the text on the DateField View.
      */
-    private void updateDateText() {
+    private void updateDateText(Date date) {
         // create the date string to be shown
-        String dateString = JournalUtil.formatDate(mEntry.getDate());
+        String dateString = JournalUtil.formatDate(date);
 
         // set the date field
         mDateField.setText(dateString);
@@ -312,20 +447,11 @@ public class JournalFragment extends Fragment {
     /*
         This method rewrites the text on the DateField View.
      */
-    private void updateTimeText() {
+    private void updateTimeText(Date date) {
         // create the time string to be shown in the TimeField Button
-        String timeString = JournalUtil.formatTime(mEntry.getDate(), false);
+        String timeString = JournalUtil.formatTime(date, DateFormat.is24HourFormat(getContext()));
 
         // set the time field
         mTimeField.setText(timeString);
     }
-
-
-    /*
-        This method updates the data modified in the Entry to the Database handled by EntryStash
-     */
-    private void syncDatabase() {
-        // update the entry in the database
-        EntryStash.get(getContext()).updateEntry(mEntry.getId(), mEntry);
-    }
 }
@@ -6,9 +6,9 @@
 package com.practice.journal.fragments;
 
 import android.app.Activity;
-import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.format.DateFormat;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -16,34 +16,83 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.ImageButton;
 import android.widget.LinearLayout;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
+import androidx.appcompat.widget.SearchView;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 
+import com.practice.journal.adapters.JournalAdapter;
+import com.practice.journal.adapters.SearchAdapter;
+import com.practice.journal.db.DatabaseExecutor;
 import com.practice.journal.models.Entry;
+import com.practice.journal.models.EntryChange;
 import com.practice.journal.models.EntryStash;
-import com.practice.journal.utils.JournalUtil;
+import com.practice.journal.models.EntrySummary;
+import com.practice.journal.models.SearchResult;
 import com.practice.journal.R;
 import com.practice.journal.activities.JournalActivity;
 import com.practice.journal.activities.ViewerActivity;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 public class JournalListFragment extends Fragment {
     private RecyclerView mRecyclerView;
     private JournalAdapter mAdapter;
+    private SearchAdapter mSearchAdapter;
+    private String mSearchQuery;
+
+    // the pending database tasks that load the list, the next page, the search results and the changed entries
+    private DatabaseExecutor.Task mUpdateTask;
+    private DatabaseExecutor.Task mPageTask;
+    private DatabaseExecutor.Task mSearchTask;
+    private DatabaseExecutor.Task mChangesTask;
+
+    // true once the list has been loaded, after that only the changes to the entries are read
+    private boolean mLoaded;
+
+    // the changes made to the entries that are not yet applied to the list, by entry id
+    private final Map<UUID, EntryChange> mPendingChanges = new LinkedHashMap<>();
+
+    // true if the entries changed since the search results were loaded
+    private boolean mSearchStale;
+
+    // the 24-hour setting of the device when the fragment was last resumed, read once instead of
+    // for every row that is bound
+    private boolean mIs24HourTime;
+
+    // runs the export and the import
+    private BackupController mBackup;
     private LinearLayout mFirstEntryView;
     private Button mNewEntryButton;
 
+    // the action mode shown while entries are being selected, null if no entry is selected
+    private ActionMode mActionMode;
+
     private static final int REQUEST_PROMPT_DELETE = 1;
+    private static final int REQUEST_PROMPT_DELETE_SELECTED = 2;
+    private static final int REQUEST_EXPORT = 3;
+    private static final int REQUEST_IMPORT = 4;
+
+    // the number of entries loaded from the database at a time
+    private static final int PAGE_SIZE = 50;
+
+    // the next page is loaded when the last visible item is this close to the end of the loaded list
+    private static final int PREFETCH_DISTANCE = 10;
+
+    // the maximum number of search results shown
+    private static final int SEARCH_LIMIT = 50;
 
     private static final String TAG_PROMPT_DELETE = "tag_prompt_delete";
 
@@ -51,6 +100,17 @@ public class JournalListFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setHasOptionsMenu(true);    // tell the fragment that the options menu will be used
+        mBackup = new BackupController(this);
+    }
+
+
+    /**
+     * Used to create a JournalListFragment. The summaries of the entries are loaded a page at a
+     * time and the changes are diffed into the list, so only the changed rows are bound again.
+     * @return A JournalListFragment.
+     */
+    public static JournalListFragment newInstance() {
+        return new JournalListFragment();
     }
 
 
@@ -84,25 +144,79 @@ public class JournalListFragment extends Fragment {
         mRecyclerView = view.findViewById(R.id.entry_recycler_view);
 
         // setup the recycler view by creating the adapter and setting the layout manager
-        mAdapter = new JournalAdapter(getContext());
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        mAdapter = new JournalAdapter(mEntryClickListener);
+        mRecyclerView.setLayoutManager(layoutManager);
         mRecyclerView.setAdapter(mAdapter);
 
+        // the new adapter is empty, it is loaded by updateUI() and then kept up to date with the changes
+        mLoaded = false;
+        mPendingChanges.clear();
+        if (mPageTask != null) {
+            // the page would come after the list of the old adapter
+            mPageTask.cancel();
+            mPageTask = null;
+        }
+        EntryStash.get(getContext()).observe(getViewLifecycleOwner(), new EntryStash.OnEntryChangedListener() {
+            @Override
+            public void onEntryChanged(EntryChange change) {
+                JournalListFragment.this.onEntryChanged(change);
+            }
+        });
 
-        // update the UI of the Fragment
-        updateUI();
+        // load the next page of entries as the user scrolls near the end of the loaded entries
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // search results are not paged
+                if (recyclerView.getAdapter() != mAdapter) {
+                    return;
+                }
+
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= mAdapter.getItemCount() - PREFETCH_DISTANCE && mAdapter.hasMore()) {
+                    // the adapter can not be changed while the recycler view is computing its layout
+                    recyclerView.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            loadNextPage();
+                        }
+                    });
+                }
+            }
+        });
 
+        // the list is loaded by updateUI() in onResume()
         return view;
     }
 
 
     /**
      * Lifecycle method that is called when the Activity is brought back to the visible screen of the user.
+     * The list is only loaded the first time, after that only the entries that were changed while the
+     * list was not shown are read again, so coming back without changes does not read the database.
      */
     @Override
     public void onResume() {
         super.onResume();
-        updateUI(); // update the items in the recycler view since the list might have changed
+
+        // the setting might have been changed while the list was not shown, the adapters only bind
+        // their rows again if it did
+        mIs24HourTime = DateFormat.is24HourFormat(getContext());
+        mAdapter.set24HourTime(mIs24HourTime);
+        if (mSearchAdapter != null) {
+            mSearchAdapter.set24HourTime(mIs24HourTime);
+        }
+
+        if (!mLoaded) {
+            updateUI();
+            return;
+        }
+
+        if (mSearchStale) {
+            search(mSearchQuery);
+        }
+        applyPendingChanges();
     }
 
 
@@ -115,6 +229,52 @@ public class JournalListFragment extends Fragment {
     public void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
         super.onCreateOptionsMenu(menu, inflater);
         inflater.inflate(R.menu.fragment_journal_list, menu);   // inflate the menu layout
+
+        // the search results replace the list of entries while the search view is expanded
+        MenuItem searchItem = menu.findItem(R.id.menu_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                search(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                search(newText);
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                // search results can not be selected
+                if (mActionMode != null) {
+                    mActionMode.finish();
+                }
+
+                mSearchAdapter = new SearchAdapter(mResultClickListener, mIs24HourTime);
+                mRecyclerView.setAdapter(mSearchAdapter);
+                showFirstEntryView(false);
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                mSearchAdapter = null;
+                mSearchQuery = null;
+                mSearchStale = false;
+
+                // the list was kept up to date while searching
+                mRecyclerView.setAdapter(mAdapter);
+                if (mLoaded) {
+                    showFirstEntryView(mAdapter.getEntryCount() == 0);
+                }
+                return true;
+            }
+        });
     }
 
 
@@ -133,6 +293,16 @@ public class JournalListFragment extends Fragment {
                 newEntry();
 
                 return true;
+
+            case R.id.menu_export:
+                // let the user pick where the backup file is written
+                mBackup.pickExportFile(REQUEST_EXPORT);
+                return true;
+
+            case R.id.menu_import:
+                // let the user pick the backup file
+                mBackup.pickImportFile(REQUEST_IMPORT);
+                return true;
         }
 
 
@@ -147,147 +317,242 @@ public class JournalListFragment extends Fragment {
             - Tells the adapter to update the UI of the recyclerview using the latest list from EntryStash
      */
     private void updateUI() {
-        // get the current list of Entries
-        List<Entry> list = EntryStash.get(getContext()).getEntries();
+        // the reload reads all of the changes made so far
+        mPendingChanges.clear();
+        if (mChangesTask != null) {
+            mChangesTask.cancel();
+            mChangesTask = null;
+        }
 
-        // check if the new entry button should be shown
-        if (list.size() < 1) {
-            showFirstEntryView(true);
-        } else {
-            showFirstEntryView(false);
+        // a page that is still loading would come after the old list
+        if (mPageTask != null) {
+            mPageTask.cancel();
+            mPageTask = null;
         }
 
-        // update the list held by the Adapter
-        mAdapter.setList(list);
+        // reload the entries up to the last one that is loaded so the user keeps the scroll position
+        final EntrySummary last = mAdapter.getLastEntry();
+        final EntryStash stash = EntryStash.get(getContext());
+
+        // only the latest reload is shown
+        if (mUpdateTask != null) {
+            mUpdateTask.cancel();
+        }
+        mUpdateTask = DatabaseExecutor.submitQuery(this, new Callable<List<EntrySummary>>() {
+            @Override
+            public List<EntrySummary> call() {
+                // the loaded window is read a page at a time, each page seeks by keyset to where the
+                // previous one ended, up to the page that reaches the last loaded entry
+                List<EntrySummary> list = new ArrayList<>(stash.getSummariesPage(PAGE_SIZE));
+                List<EntrySummary> page = list;
+                while (last != null && page.size() == PAGE_SIZE
+                        && JournalAdapter.compareOrder(page.get(PAGE_SIZE - 1), last) < 0) {
+                    EntrySummary end = page.get(PAGE_SIZE - 1);
+                    page = stash.getSummariesPage(end.getDate().getTime(), end.getRowId(), PAGE_SIZE);
+                    list.addAll(page);
+                }
+                return list;
+            }
+        }, new DatabaseExecutor.Callback<List<EntrySummary>>() {
+            @Override
+            public void onResult(List<EntrySummary> list) {
+                mUpdateTask = null;
+                mLoaded = true;
+
+                // update the list held by the Adapter, every page but the last one was full so there
+                // are more entries if the last page was full too, only the rows that changed are updated
+                mAdapter.setList(list, !list.isEmpty() && list.size() % PAGE_SIZE == 0);
 
-        // tell the adapter to update the items in the recycler view using the new list that was set
-        mAdapter.notifyDataSetChanged();
+                // check if the new entry button should be shown, unless the search results replaced the list
+                if (mSearchAdapter == null) {
+                    showFirstEntryView(list.size() < 1);
+                }
+
+                // apply the changes that were made while the list was loading
+                applyPendingChanges();
+            }
+        });
     }
 
 
     /*
-        Adapter Class for feeding the RecyclerView with ViewHolders from the list of entries.
-        This class creates the needed ViewHolder defined in JournalViewHolder and binds that
-        view to the Data from the List of Journal Entries, then it is shown by the RecyclerView.
+        Appends the page of entries after the last loaded entry to the list.
      */
-    private class JournalAdapter extends RecyclerView.Adapter<JournalHolder> {
-        // the list containing the Entry data set for the recycler view to use
-        private List<Entry> mList;
-
-        // creates an adapter with the given list of entries
-        public JournalAdapter(Context context) {
-            this.mList = EntryStash.get(context).getEntries();
+    private void loadNextPage() {
+        final EntrySummary last = mAdapter.getLastEntry();
+        if (!mAdapter.hasMore() || last == null || mPageTask != null) {
+            return;
         }
 
+        // seek to the page after the last loaded entry
+        final EntryStash stash = EntryStash.get(getContext());
+        mPageTask = DatabaseExecutor.submitQuery(this, new Callable<List<EntrySummary>>() {
+            @Override
+            public List<EntrySummary> call() {
+                return stash.getSummariesPage(last.getDate().getTime(), last.getRowId(), PAGE_SIZE);
+            }
+        }, new DatabaseExecutor.Callback<List<EntrySummary>>() {
+            @Override
+            public void onResult(List<EntrySummary> page) {
+                mPageTask = null;
+                mAdapter.appendPage(page, page.size() == PAGE_SIZE);
 
-        // creates the view holders that the recycler view will use
-        @NonNull
-        @Override
-        public JournalHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-            return new JournalHolder(getLayoutInflater(), parent);
-        }
+                // apply the changes that were made while the page was loading
+                applyPendingChanges();
+            }
+        });
+    }
 
 
-        // binds the data from mList to the corresponding view holder upon the request of the recycler view
-        @Override
-        public void onBindViewHolder(@NonNull JournalHolder holder, int position) {
-            holder.bind(mList.get(position));
+    /*
+        Called on the main thread when an entry was added, updated or deleted. The change is applied
+        right away if the list is shown, otherwise once the list is shown again.
+     */
+    private void onEntryChanged(EntryChange change) {
+        // the search results are matched on the titles, any change can add, remove or reorder them
+        if (mSearchAdapter != null) {
+            mSearchStale = true;
+            if (isResumed()) {
+                search(mSearchQuery);
+            }
         }
 
-        // the number of items in the data set held by this adapter
-        @Override
-        public int getItemCount() {
-            return mList.size();
+        // the list only shows the title and the date of the entries
+        if (change.getType() == EntryChange.UPDATED
+                && (change.getFields() & (Entry.FIELD_TITLE | Entry.FIELD_DATE)) == 0) {
+            return;
         }
 
-
-        // This method updates the data set of this adapter, used for updating the UI of the recycler view
-        // @params list The list containing the Entries
-        public void setList(List<Entry> list) {
-            mList = list;
+        // only the latest change of an entry matters since its summary is read again, a reload is
+        // kept under the null id
+        mPendingChanges.put(change.getId(), change);
+        if (isResumed()) {
+            applyPendingChanges();
         }
     }
 
+
     /*
-        ViewHolder Class that inflates the Views that will be shown by the RecyclerView.
-        This class essentially defines the views inflated in the list_item_entry.xml
+        Applies the pending changes to the loaded list. Deleted entries are removed right away, the
+        summaries of the added and updated entries are read and put in their place in the list.
+        Nothing is applied while the list or one of its pages is loading, the changes are applied
+        once it has loaded since applying a change twice has the same result as applying it once.
      */
-    private class JournalHolder extends RecyclerView.ViewHolder {
-        private TextView mTitleTextView;
-        private TextView mDateTextView;
-        private ImageButton mEditButton;
-        private ImageButton mDeleteButton;
-        private Entry mEntry;
-
-        public JournalHolder(LayoutInflater inflater, ViewGroup parent) {
-            // inflate the layout. The root view can be found in the ViewHolder member field named itemView
-            super(inflater.inflate(R.layout.list_item_entry, parent, false));
-
-            // get references to the text view
-            mTitleTextView = itemView.findViewById(R.id.entry_title);
-            mDateTextView = itemView.findViewById(R.id.entry_date);
-            mEditButton = itemView.findViewById(R.id.edit_button);
-            mDeleteButton = itemView.findViewById(R.id.delete_button);
-
-            // set the click listeners to the buttons
-            mEditButton.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    onEditClicked(v);
-                }
-            });
+    private void applyPendingChanges() {
+        if (!mLoaded || mPendingChanges.isEmpty() || mUpdateTask != null) {
+            return;
+        }
 
-            mDeleteButton.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    onDeleteClicked(v);
+        if (mChangesTask != null || mPageTask != null) {
+            return;
+        }
+
+        // too many entries changed to read them one at a time, the list is read again
+        if (mPendingChanges.containsKey(null)) {
+            updateUI();
+            return;
+        }
+
+        final List<UUID> changed = new ArrayList<>();
+        for (EntryChange change : mPendingChanges.values()) {
+            if (change.getType() == EntryChange.DELETED) {
+                mAdapter.putEntry(change.getId(), null);
+            } else {
+                changed.add(change.getId());
+            }
+        }
+        mPendingChanges.clear();
+
+        if (changed.isEmpty()) {
+            onListChanged();
+            return;
+        }
+
+        final EntryStash stash = EntryStash.get(getContext());
+        mChangesTask = DatabaseExecutor.submitQuery(this, new Callable<List<EntrySummary>>() {
+            @Override
+            public List<EntrySummary> call() {
+                List<EntrySummary> summaries = new ArrayList<>(changed.size());
+                for (UUID id : changed) {
+                    summaries.add(stash.getSummary(id));
                 }
-            });
+                return summaries;
+            }
+        }, new DatabaseExecutor.Callback<List<EntrySummary>>() {
+            @Override
+            public void onResult(List<EntrySummary> summaries) {
+                mChangesTask = null;
 
-            // set the click listener for when this ViewHolder is clicked
-            itemView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    onViewHolderClick(v);
+                // a null summary means the entry was deleted before it was read
+                for (int i = 0; i < changed.size(); i++) {
+                    mAdapter.putEntry(changed.get(i), summaries.get(i));
                 }
-            });
-        }
+                onListChanged();
+
+                // apply the changes that were made while the summaries were read
+                applyPendingChanges();
+            }
+        });
+    }
 
-        // This method is called by the adapter to fill the data in this ViewHolder
-        public void bind(Entry entry) {
-            mEntry = entry;
-            mTitleTextView.setText(mEntry.getTitle());
 
-            // format the date string before showing to the list
-            String dateTimeString = JournalUtil.formatDateTime(mEntry.getDate(), false);
-            mDateTextView.setText(dateTimeString);
+    /*
+        Updates the views that depend on the entries in the list after changes were applied to it.
+     */
+    private void onListChanged() {
+        if (mSearchAdapter == null) {
+            showFirstEntryView(mAdapter.getEntryCount() == 0);
         }
 
-        // Method to be called when the edit button is clicked
-        public void onEditClicked(View v) {
-            // Clicking the edit button will launch the JournalActivity to allow edits to the entry
-            Intent intent = JournalActivity.newIntent(getContext(), mEntry.getId());
-            startActivity(intent);
+        // the selection ends if all of the selected entries were deleted
+        if (mActionMode != null) {
+            int count = mAdapter.getSelected().size();
+            if (count == 0) {
+                mActionMode.finish();
+            } else {
+                mActionMode.setTitle(getString(R.string.selected_count, count));
+            }
         }
+    }
 
-        // Method to be called when the delete button is clicked
-        public void onDeleteClicked(View v) {
-            // show a prompt to confirm delete operation
-            PromptDeleteEntryFragment dialog = new PromptDeleteEntryFragment(
-                    getString(R.string.prompt_delete_entry),
-                    getString(R.string.delete),
-                    mEntry
-            );
-            dialog.setTargetFragment(JournalListFragment.this, REQUEST_PROMPT_DELETE);
-            dialog.show(getFragmentManager(), TAG_PROMPT_DELETE);
+
+    /*
+        Searches the journal and shows the results in the RecyclerView.
+     */
+    private void search(final String query) {
+        if (mSearchAdapter == null) {
+            return;
         }
 
-        // Method to be called when this view holder is clicked
-        public void onViewHolderClick(View v) {
-            // This method will launch the ViewerActivity for previewing an entry
-            Intent intent = ViewerActivity.newIntent(getContext(), mEntry.getId());
-            startActivity(intent);
+        mSearchQuery = query;
+        mSearchStale = false;
+
+        // the results of an older query are no longer needed
+        if (mSearchTask != null) {
+            mSearchTask.cancel();
+            mSearchTask = null;
+        }
+
+        if (query == null) {
+            mSearchAdapter.setResults(new ArrayList<SearchResult>());
+            return;
         }
+
+        final EntryStash stash = EntryStash.get(getContext());
+        mSearchTask = DatabaseExecutor.submitQuery(this, new Callable<List<SearchResult>>() {
+            @Override
+            public List<SearchResult> call() {
+                return stash.search(query, SEARCH_LIMIT);
+            }
+        }, new DatabaseExecutor.Callback<List<SearchResult>>() {
+            @Override
+            public void onResult(List<SearchResult> results) {
+                mSearchTask = null;
+                if (mSearchAdapter != null) {
+                    mSearchAdapter.setResults(results);
+                }
+            }
+        });
     }
 
 
@@ -310,17 +575,162 @@ public class JournalListFragment extends Fragment {
 
             // retrieve the Entry id from the dialog
             String uuidString = (String) data.getSerializableExtra(PromptDeleteEntryFragment.EXTRA_PROMPT_ENTRYID);
-            UUID uuid = UUID.fromString(uuidString);
+            final UUID uuid = UUID.fromString(uuidString);
 
-            // if val is true delete the entry
+            // if val is true delete the entry, it is removed from the list once the delete is done
             if (val) {
-                EntryStash.get(getContext()).deleteEntry(uuid);
-                updateUI();
+                final EntryStash stash = EntryStash.get(getContext());
+                DatabaseExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        stash.deleteEntry(uuid);
+                    }
+                });
+            }
+        } else if (requestCode == REQUEST_PROMPT_DELETE_SELECTED) {
+            boolean val = (boolean) data.getSerializableExtra(PromptDialogFragment.EXTRA_PROMPT);
+
+            // delete all of the selected entries in one transaction, they are removed from the list once it is done
+            if (val && mActionMode != null) {
+                final List<UUID> ids = new ArrayList<>(mAdapter.getSelected());
+                final EntryStash stash = EntryStash.get(getContext());
+                DatabaseExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        stash.deleteEntries(ids);
+                    }
+                });
+                mActionMode.finish();
             }
+        } else if (requestCode == REQUEST_EXPORT && data != null && data.getData() != null) {
+            mBackup.export(data.getData());
+        } else if (requestCode == REQUEST_IMPORT && data != null && data.getData() != null) {
+            mBackup.importFrom(data.getData());
+        }
+    }
+
+
+    /*
+        Selects or unselects the entry at the given position and shows the number of selected
+        entries, selecting ends once no entry is selected.
+     */
+    private void toggleSelection(int position) {
+        if (position == RecyclerView.NO_POSITION || mActionMode == null) {
+            return;
+        }
+
+        mAdapter.toggleSelection(position);
+        int count = mAdapter.getSelected().size();
+        if (count == 0) {
+            mActionMode.finish();
+        } else {
+            mActionMode.setTitle(getString(R.string.selected_count, count));
         }
     }
 
 
+    /*
+        Listener of the clicks on the entries in the list.
+     */
+    private final JournalAdapter.OnEntryClickListener mEntryClickListener = new JournalAdapter.OnEntryClickListener() {
+        @Override
+        public void onEntryClick(int position, EntrySummary entry) {
+            // while selecting, clicking an entry selects or unselects it
+            if (mActionMode != null) {
+                toggleSelection(position);
+                return;
+            }
+
+            // launch the ViewerActivity for previewing the entry
+            Intent intent = ViewerActivity.newIntent(getContext(), entry.getId());
+            startActivity(intent);
+        }
+
+        @Override
+        public boolean onEntryLongClick(int position, EntrySummary entry) {
+            // start selecting with this entry
+            if (mActionMode == null) {
+                mActionMode = ((AppCompatActivity) getActivity()).startSupportActionMode(mSelectionCallback);
+            }
+            toggleSelection(position);
+            return true;
+        }
+
+        @Override
+        public void onEditClick(EntrySummary entry) {
+            // clicking the edit button will launch the JournalActivity to allow edits to the entry
+            Intent intent = JournalActivity.newIntent(getContext(), entry.getId());
+            startActivity(intent);
+        }
+
+        @Override
+        public void onDeleteClick(EntrySummary entry) {
+            // show a prompt to confirm delete operation
+            PromptDeleteEntryFragment dialog = new PromptDeleteEntryFragment(
+                    getString(R.string.prompt_delete_entry),
+                    getString(R.string.delete),
+                    entry.getId()
+            );
+            dialog.setTargetFragment(JournalListFragment.this, REQUEST_PROMPT_DELETE);
+            dialog.show(getFragmentManager(), TAG_PROMPT_DELETE);
+        }
+    };
+
+
+    /*
+        Listener of the clicks on the search results, clicking a result previews the entry.
+     */
+    private final SearchAdapter.OnResultClickListener mResultClickListener = new SearchAdapter.OnResultClickListener() {
+        @Override
+        public void onResultClick(SearchResult result) {
+            Intent intent = ViewerActivity.newIntent(getContext(), result.getSummary().getId());
+            startActivity(intent);
+        }
+    };
+
+
+    /*
+        Callback of the action mode shown while entries are selected, it deletes the selected entries.
+     */
+    private final ActionMode.Callback mSelectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.fragment_journal_list_selection, menu);
+
+            // hide the buttons of the entries
+            mAdapter.setSelecting(true);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            if (item.getItemId() == R.id.menu_delete_selected) {
+                // confirm the deletion of the selected entries
+                int count = mAdapter.getSelected().size();
+                PromptDialogFragment dialog = new PromptDialogFragment(
+                        getResources().getQuantityString(R.plurals.prompt_delete_entries, count, count),
+                        getString(R.string.delete)
+                );
+                dialog.setTargetFragment(JournalListFragment.this, REQUEST_PROMPT_DELETE_SELECTED);
+                dialog.show(getFragmentManager(), TAG_PROMPT_DELETE);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            mActionMode = null;
+            mAdapter.setSelecting(false);
+        }
+    };
+
+
     /*
         Shows or Hides the TextView and Button for helping the user in adding their first Journal Entry.
         They should only be seen when the list of entries is empty.
@@ -341,10 +751,17 @@ public class JournalListFragment extends Fragment {
      */
     private void newEntry() {
         // create a new entry
-        Entry entry = new Entry();
+        final Entry entry = new Entry();
 
-        // add the newly created entry to the list of entries
-        EntryStash.get(getContext()).addEntry(entry);
+        // add the newly created entry to the list of entries, the JournalActivity reads it back
+        // from the database after the insert since its query waits for the writes submitted before it
+        final EntryStash stash = EntryStash.get(getContext());
+        DatabaseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                stash.addEntry(entry);
+            }
+        });
 
         // launch the JournalActivity
         Intent intent = JournalActivity.newIntent(getContext(), entry.getId());
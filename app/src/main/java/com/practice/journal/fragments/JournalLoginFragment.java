@@ -25,7 +25,10 @@ import androidx.fragment.app.Fragment;
 import com.practice.journal.R;
 import com.practice.journal.activities.JournalListActivity;
 import com.practice.journal.activities.JournalSignupActivity;
-import com.practice.journal.models.UserStash;
+import com.practice.journal.db.DatabaseExecutor;
+import com.practice.journal.models.SessionManager;
+
+import java.util.concurrent.Callable;
 
 public class JournalLoginFragment extends Fragment {
     public static final int REQUEST_SIGNUP = 1;
@@ -41,12 +44,24 @@ public class JournalLoginFragment extends Fragment {
         super.onCreate(savedInstanceState);
         mAttempts = 0;
 
-        // check if the user has already been registered and launch the signup activity if not yet registered
-        boolean isRegistered = UserStash.get(getContext()).hasUser("user");
-        if (!isRegistered) {
-            Intent intent = new Intent(getActivity(), JournalSignupActivity.class);
-            startActivityForResult(intent, REQUEST_SIGNUP);
+        // the journal is still unlocked from a recent visit, so the pin is not asked again
+        SessionManager session = SessionManager.get(getContext());
+        if (session.isAuthenticated()) {
+            startActivity(new Intent(getContext(), JournalListActivity.class));
+            getActivity().finish();
+            return;
         }
+
+        // check if the user has already been registered and launch the signup activity if not yet registered
+        session.loadRegistered(this, new DatabaseExecutor.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean isRegistered) {
+                if (!isRegistered) {
+                    Intent intent = new Intent(getActivity(), JournalSignupActivity.class);
+                    startActivityForResult(intent, REQUEST_SIGNUP);
+                }
+            }
+        });
     }
 
 
@@ -68,7 +83,7 @@ public class JournalLoginFragment extends Fragment {
         mLoginButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                String pin = mPasswordField.getText().toString();
+                final String pin = mPasswordField.getText().toString();
 
                 // hide the on-screen keyboard
                 InputMethodManager manager = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
@@ -76,20 +91,33 @@ public class JournalLoginFragment extends Fragment {
                     manager.hideSoftInputFromWindow(mPasswordField.getWindowToken(), 0);
                 }
 
-                // authenticate pin
-                boolean isAuthenticated = UserStash.get(getContext()).authenticateSingleUser(pin);
-                if (isAuthenticated) {
-                    // start the JournalList Activity
-                    Intent intent = new Intent(getContext(), JournalListActivity.class);
-                    startActivity(intent);
-                    getActivity().finish();
-
-                } else {
-                    Toast.makeText(getContext(), getString(R.string.toast_pin_incorrect), Toast.LENGTH_SHORT).show();
-                    mPasswordField.setText("");
-                    mPasswordField.requestFocus();
-                    mAttempts++;
-                }
+                // authenticate pin and unlock the contents, the button is disabled until the result
+                // arrives. The first unlock encrypts the contents, so it runs on the write thread
+                mLoginButton.setEnabled(false);
+                final SessionManager session = SessionManager.get(getContext());
+                DatabaseExecutor.submit(JournalLoginFragment.this, new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return session.unlock(pin);
+                    }
+                }, new DatabaseExecutor.Callback<Boolean>() {
+                    @Override
+                    public void onResult(Boolean isAuthenticated) {
+                        mLoginButton.setEnabled(true);
+                        if (isAuthenticated) {
+                            // start the JournalList Activity
+                            Intent intent = new Intent(getContext(), JournalListActivity.class);
+                            startActivity(intent);
+                            getActivity().finish();
+
+                        } else {
+                            Toast.makeText(getContext(), getString(R.string.toast_pin_incorrect), Toast.LENGTH_SHORT).show();
+                            mPasswordField.setText("");
+                            mPasswordField.requestFocus();
+                            mAttempts++;
+                        }
+                    }
+                });
             }
         });
 
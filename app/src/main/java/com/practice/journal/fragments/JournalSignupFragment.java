@@ -21,9 +21,13 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.practice.journal.R;
+import com.practice.journal.db.DatabaseExecutor;
+import com.practice.journal.models.SessionManager;
 import com.practice.journal.models.User;
 import com.practice.journal.models.UserStash;
 
+import java.util.concurrent.Callable;
+
 public class JournalSignupFragment extends Fragment {
     private EditText mNameField;
     private EditText mPinField;
@@ -60,10 +64,10 @@ public class JournalSignupFragment extends Fragment {
         mSignupButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                String name = mNameField.getText().toString();
+                final String name = mNameField.getText().toString();
                 String pin = mPinField.getText().toString();
                 String confirm = mConfirmField.getText().toString();
-                User user = new User(name, pin);
+                final User user = new User(name, pin);
 
                 // check if the name field is empty
                 if (mNameField.getText().toString().length() == 0) {
@@ -79,24 +83,41 @@ public class JournalSignupFragment extends Fragment {
                     return;
                 }
 
-                // check user name validity
-                if (UserStash.get(getContext()).hasUser(name)) {
-                    Toast.makeText(getContext(), getString(R.string.toast_user_exist), Toast.LENGTH_SHORT).show();
-                    return;
-                }
-
                 // if entered pin is equal to confirm pin
                 if (pin.equals(confirm)) {
 
-                    // create the user
-                    UserStash.get(getContext()).createUser(new User("user", user.getPin()));    // temporarily hardcode the username to user
-                    Toast.makeText(getContext(), getString(R.string.toast_user_created), Toast.LENGTH_SHORT).show();
-
-                    // end the activity
-                    Intent intent = new Intent();
-                    intent.putExtra(EXTRA_SIGNUP_STATUS, true);
-                    getActivity().setResult(Activity.RESULT_OK);
-                    getActivity().finish();
+                    // check user name validity and create the user, the button is disabled until it is done
+                    mSignupButton.setEnabled(false);
+                    final UserStash stash = UserStash.get(getContext());
+                    final SessionManager session = SessionManager.get(getContext());
+                    DatabaseExecutor.submit(JournalSignupFragment.this, new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            if (stash.hasUser(name)) {
+                                return false;
+                            }
+                            stash.createUser(new User("user", user.getPin()));    // temporarily hardcode the username to user
+                            session.onRegistered();
+                            return true;
+                        }
+                    }, new DatabaseExecutor.Callback<Boolean>() {
+                        @Override
+                        public void onResult(Boolean isCreated) {
+                            mSignupButton.setEnabled(true);
+                            if (!isCreated) {
+                                Toast.makeText(getContext(), getString(R.string.toast_user_exist), Toast.LENGTH_SHORT).show();
+                                return;
+                            }
+
+                            Toast.makeText(getContext(), getString(R.string.toast_user_created), Toast.LENGTH_SHORT).show();
+
+                            // end the activity
+                            Intent intent = new Intent();
+                            intent.putExtra(EXTRA_SIGNUP_STATUS, true);
+                            getActivity().setResult(Activity.RESULT_OK);
+                            getActivity().finish();
+                        }
+                    });
 
                 } else {
                     // pin not equal
@@ -8,10 +8,10 @@ package com.practice.journal.fragments;
 import android.app.Activity;
 import android.content.Intent;
 
-import com.practice.journal.models.Entry;
+import java.util.UUID;
 
 public class PromptDeleteEntryFragment extends PromptDialogFragment {
-    private Entry mEntry;
+    private UUID mEntryId;
 
     public static final String EXTRA_PROMPT_ENTRYID = "com.practice.journal.prompt_entryid";
 
@@ -20,10 +20,11 @@ public class PromptDeleteEntryFragment extends PromptDialogFragment {
      *
      * @param dialogMsg   The message that will be shown in the Title of the Alert Dialog
      * @param positiveMsg The meesage that will be shown in the Positive button of the Alert Dialog
+     * @param entryId The id of the Entry to be deleted
      */
-    public PromptDeleteEntryFragment(String dialogMsg, String positiveMsg, Entry entry) {
+    public PromptDeleteEntryFragment(String dialogMsg, String positiveMsg, UUID entryId) {
         super(dialogMsg, positiveMsg);
-        mEntry = entry;
+        mEntryId = entryId;
     }
 
     /**
@@ -34,7 +35,7 @@ public class PromptDeleteEntryFragment extends PromptDialogFragment {
         // create the intent that will hold the result
         Intent intent = new Intent();
         intent.putExtra(EXTRA_PROMPT, value);
-        intent.putExtra(EXTRA_PROMPT_ENTRYID, mEntry.getId().toString());
+        intent.putExtra(EXTRA_PROMPT_ENTRYID, mEntryId.toString());
 
         // send the result back to the caller using Target Fragment
         getTargetFragment().onActivityResult(getTargetRequestCode(), Activity.RESULT_OK, intent);
@@ -10,6 +10,7 @@ import android.app.Dialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.format.DateFormat;
 import android.widget.TimePicker;
 
 import androidx.annotation.NonNull;
@@ -63,7 +64,7 @@ public class TimePickerFragment extends DialogFragment implements TimePickerDial
                 this,
                 hour,
                 minute,
-                false);
+                DateFormat.is24HourFormat(getActivity()));
 
         return dialog;
     }
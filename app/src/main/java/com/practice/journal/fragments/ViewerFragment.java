@@ -8,6 +8,7 @@ package com.practice.journal.fragments;
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.format.DateFormat;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -20,19 +21,31 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import com.practice.journal.models.Entry;
+import com.practice.journal.db.DatabaseExecutor;
+import com.practice.journal.models.EntryChange;
+import com.practice.journal.models.EntryContentReader;
 import com.practice.journal.models.EntryStash;
 import com.practice.journal.utils.JournalUtil;
 import com.practice.journal.R;
 import com.practice.journal.activities.JournalActivity;
 
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 public class ViewerFragment extends Fragment {
     private TextView titleTextField;
     private TextView dateTimeTextField;
     private TextView contentTextField;
-    private Entry mEntry;
+    private UUID mEntryId;
+
+    // the load of the entry that was started last
+    private DatabaseExecutor.Task mLoadTask;
+
+    // reads the rest of the content that is being shown, null once all of it is shown
+    private EntryContentReader mContentReader;
+
+    // true if the entry was changed since it was loaded
+    private boolean mEntryStale = true;
 
     private static final String ARGS_ENTRY_ID = "uuid";
 
@@ -40,15 +53,26 @@ public class ViewerFragment extends Fragment {
 
     private static final int REQUEST_PROMPT_DELETE = 1;
 
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        // retrieve the Entry id from the fragment argument
-        UUID id = (UUID) getArguments().getSerializable(ARGS_ENTRY_ID);
-
-        // get the Entry using the UUID
-        mEntry = EntryStash.get(getContext()).getEntry(id);
+        // retrieve the Entry id from the fragment argument, the Entry is loaded by updateUI() in onResume()
+        mEntryId = (UUID) getArguments().getSerializable(ARGS_ENTRY_ID);
+
+        // the entry is only loaded again if it was changed, for example in the JournalActivity
+        EntryStash.get(getContext()).observe(this, new EntryStash.OnEntryChangedListener() {
+            @Override
+            public void onEntryChanged(EntryChange change) {
+                if (change.getType() == EntryChange.RELOADED || mEntryId.equals(change.getId())) {
+                    mEntryStale = true;
+                    if (isResumed()) {
+                        updateUI();
+                    }
+                }
+            }
+        });
 
         // enable the menu on the toolbar
         setHasOptionsMenu(true);
@@ -56,12 +80,15 @@ public class ViewerFragment extends Fragment {
 
 
     /**
-     * This lifecycle method is called when the Fragment is on the foreground again
+     * This lifecycle method is called when the Fragment is on the foreground again. The entry is
+     * only loaded again if it was changed while the viewer was not shown.
      */
     @Override
     public void onResume() {
         super.onResume();
-        updateUI();
+        if (mEntryStale) {
+            updateUI();
+        }
     }
 
 
@@ -96,15 +123,10 @@ public class ViewerFragment extends Fragment {
         // inflate the layout
         View view = inflater.inflate(R.layout.fragment_viewer, container, false);
 
-        // get the references to the Views in the layout and set its values
+        // get the references to the Views in the layout, their values are set once the Entry is loaded
         titleTextField = view.findViewById(R.id.title_viewer);
-        titleTextField.setText(mEntry.getTitle());
-
         dateTimeTextField = view.findViewById(R.id.datetime_viewer);
-        dateTimeTextField.setText(JournalUtil.formatDateTime(mEntry.getDate(), false));
-
         contentTextField = view.findViewById(R.id.content_viewer);
-        contentTextField.setText(mEntry.getContent());
 
         return view;
     }
@@ -132,7 +154,7 @@ public class ViewerFragment extends Fragment {
         switch (item.getItemId()) {
             case R.id.menu_edit:
                 // create the intent to launch the new activity and start it
-                Intent intent = JournalActivity.newIntent(getContext(), mEntry.getId());
+                Intent intent = JournalActivity.newIntent(getContext(), mEntryId);
                 startActivity(intent);
 
                 return true;
@@ -142,7 +164,7 @@ public class ViewerFragment extends Fragment {
                 PromptDeleteEntryFragment prompt = new PromptDeleteEntryFragment(
                         getString(R.string.prompt_delete_entry),
                         getString(R.string.delete),
-                        mEntry
+                        mEntryId
                 );
                 prompt.setTargetFragment(this, REQUEST_PROMPT_DELETE);
                 prompt.show(getFragmentManager(), TAG_PROMPT_DELETE);
@@ -174,12 +196,18 @@ public class ViewerFragment extends Fragment {
 
             // get the id of the entry to be deleted
             String uuidString = (String) data.getSerializableExtra(PromptDeleteEntryFragment.EXTRA_PROMPT_ENTRYID);
-            UUID uuid = UUID.fromString(uuidString);
+            final UUID uuid = UUID.fromString(uuidString);
 
             // delete the entry depending on the retrieved boolean value
             if (value) {
-                // delete the entry
-                EntryStash.get(getContext()).deleteEntry(uuid);
+                // delete the entry, the list is updated by the change the stash publishes after the delete
+                final EntryStash stash = EntryStash.get(getContext());
+                DatabaseExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        stash.deleteEntry(uuid);
+                    }
+                });
 
                 // go back the activity stack once, simulate pressing of the back button.
                 getActivity().onBackPressed();
@@ -188,18 +216,81 @@ public class ViewerFragment extends Fragment {
     }
 
     /*
-            Updates the Entry object in this Viewer and the updated Entry's data will be used by the Views
-         */
+        Loads the entry and shows it in the Views. The title, the date and the start of the content
+        are shown as soon as they are read, the rest of the content is read and appended in steps
+        so that a very long entry does not keep the screen empty.
+     */
     private void updateUI() {
-        // update the entry object
-        mEntry = EntryStash.get(getContext()).getEntry(mEntry.getId());
+        mEntryStale = false;
 
-        // update the Views
-        titleTextField.setText(mEntry.getTitle());
+        // stop the load that was started earlier and the content that was being appended
+        if (mLoadTask != null) {
+            mLoadTask.cancel();
+        }
+        if (mContentReader != null) {
+            mContentReader.close();
+            mContentReader = null;
+        }
+
+        // load the summary and the start of the content
+        final EntryStash stash = EntryStash.get(getContext());
+        mLoadTask = DatabaseExecutor.submitQuery(this, new Callable<ContentStart>() {
+            @Override
+            public ContentStart call() {
+                return ContentStart.read(stash, mEntryId);
+            }
+        }, new DatabaseExecutor.Callback<ContentStart>() {
+            @Override
+            public void onResult(ContentStart start) {
+                // the entry might have been deleted
+                if (start == null) {
+                    return;
+                }
+
+                // update the Views
+                titleTextField.setText(start.summary.getTitle());
+
+                String dateTime = JournalUtil.formatDateTime(start.summary.getDate(),
+                        DateFormat.is24HourFormat(getContext()));
+                dateTimeTextField.setText(dateTime);
+
+                contentTextField.setText(start.text);
+                if (!start.isComplete()) {
+                    mContentReader = start.reader;
+                    appendContent(start.reader);
+                }
+            }
+        });
+    }
 
-        String dateTime = JournalUtil.formatDateTime(mEntry.getDate(), false);
-        dateTimeTextField.setText(dateTime);
 
-        contentTextField.setText(mEntry.getContent());
+    /*
+        Reads the next part of the content and appends it to the content view, until the whole
+        content is shown or another load has started.
+     */
+    private void appendContent(final EntryContentReader reader) {
+        DatabaseExecutor.submitQuery(this, new Callable<String>() {
+            @Override
+            public String call() {
+                return reader.readChunks(ContentStart.STEP_CHARS);
+            }
+        }, new DatabaseExecutor.Callback<String>() {
+            @Override
+            public void onResult(String text) {
+                if (reader != mContentReader) {
+                    return;
+                }
+
+                if (text == null) {
+                    // the whole content is shown
+                    reader.close();
+                    mContentReader = null;
+                    return;
+                }
+
+                contentTextField.append(text);
+                appendContent(reader);
+            }
+        });
     }
 }
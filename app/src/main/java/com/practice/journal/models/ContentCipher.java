@@ -0,0 +1,195 @@
+/**
+ * Class that encrypts and decrypts the content of the journal entries. Every chunk of a content is
+ * encrypted on its own with AES-GCM under the content key, with a random nonce, and the row id of
+ * its entry and its seq are authenticated with it, so a chunk that was changed or moved to another
+ * entry or position is not accepted. The content key is random, it is stored wrapped with a key
+ * derived from the pin and is only held in memory once the journal is unlocked at login. The
+ * titles and dates are not encrypted, so the list of entries never has to decrypt anything.
+ * All methods can be called from any thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+public final class ContentCipher {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String KEY_ALGORITHM = "AES";
+
+    private static final int KEY_BYTES = 32;
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    // the associated data of a wrapped key, so it can not be taken for a chunk
+    private static final byte[] KEY_AAD = "journal-content-key".getBytes(StandardCharsets.US_ASCII);
+
+    private static final SecureRandom sRandom = new SecureRandom();
+
+    // looking up a cipher in the providers costs more than encrypting a chunk, so each thread
+    // keeps its own and only initializes it again for each chunk
+    private static final ThreadLocal<Cipher> sCiphers = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    // the content key of the session, null while the journal is locked
+    private static volatile SecretKey sKey;
+
+    // private constructor to avoid instantiation of this class
+    private ContentCipher() {}
+
+
+    /**
+     * Returns whether the journal has been unlocked, which is needed for reading or writing the
+     * content of an entry.
+     * @return true if the content key is in memory.
+     */
+    public static boolean isUnlocked() {
+        return sKey != null;
+    }
+
+
+    /*
+        Sets the content key of the session, called by UserStash once the pin is checked.
+     */
+    static void setKey(SecretKey key) {
+        sKey = key;
+    }
+
+
+    /*
+        Returns the content key of the session, or throws an IllegalStateException if the journal
+        is locked.
+     */
+    static SecretKey requireKey() {
+        SecretKey key = sKey;
+        if (key == null) {
+            throw new IllegalStateException("The journal is locked");
+        }
+        return key;
+    }
+
+
+    /*
+        Encrypts a chunk of a content with the content key. The result is the nonce followed by the
+        encrypted text and its tag.
+     */
+    static byte[] encrypt(long rowId, int seq, String text) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        sRandom.nextBytes(nonce);
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            Cipher cipher = sCiphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, requireKey(), new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(chunkAad(rowId, seq));
+
+            byte[] data = new byte[NONCE_BYTES + cipher.getOutputSize(plain.length)];
+            System.arraycopy(nonce, 0, data, 0, NONCE_BYTES);
+            cipher.doFinal(plain, 0, plain.length, data, NONCE_BYTES);
+            return data;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /*
+        Decrypts a chunk of a content that was encrypted by encrypt() for the same row id and seq.
+        Throws an IllegalStateException if the chunk does not match its tag.
+     */
+    static String decrypt(long rowId, int seq, byte[] data) {
+        try {
+            Cipher cipher = sCiphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, requireKey(), new GCMParameterSpec(TAG_BITS, data, 0, NONCE_BYTES));
+            cipher.updateAAD(chunkAad(rowId, seq));
+            byte[] plain = cipher.doFinal(data, NONCE_BYTES, data.length - NONCE_BYTES);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (AEADBadTagException e) {
+            throw new IllegalStateException("Chunk " + seq + " of entry " + rowId + " is damaged", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /*
+        Returns a new random content key.
+     */
+    static SecretKey newContentKey() {
+        byte[] key = new byte[KEY_BYTES];
+        sRandom.nextBytes(key);
+        return new SecretKeySpec(key, KEY_ALGORITHM);
+    }
+
+
+    /*
+        Derives the key that wraps the content key from the pin, with the same PBKDF2 cost as the
+        hash of the pin. This is slow on purpose, so it must not be called on the main thread.
+     */
+    static SecretKey deriveKey(String pin, byte[] salt, int rounds) {
+        return new SecretKeySpec(PinHasher.derive(pin, salt, rounds, KEY_BYTES), KEY_ALGORITHM);
+    }
+
+
+    /*
+        Encrypts the content key with the key derived from the pin.
+     */
+    static byte[] wrapKey(SecretKey pinKey, SecretKey contentKey) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        sRandom.nextBytes(nonce);
+
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, pinKey, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(KEY_AAD);
+            byte[] wrapped = cipher.doFinal(contentKey.getEncoded());
+            return ByteBuffer.allocate(NONCE_BYTES + wrapped.length).put(nonce).put(wrapped).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /*
+        Decrypts a content key wrapped by wrapKey(), or returns null if it was wrapped with
+        another key.
+     */
+    static SecretKey unwrapKey(SecretKey pinKey, byte[] wrapped) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, pinKey, new GCMParameterSpec(TAG_BITS, wrapped, 0, NONCE_BYTES));
+            cipher.updateAAD(KEY_AAD);
+            byte[] key = cipher.doFinal(wrapped, NONCE_BYTES, wrapped.length - NONCE_BYTES);
+            return new SecretKeySpec(key, KEY_ALGORITHM);
+        } catch (AEADBadTagException e) {
+            return null;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /*
+        Returns the associated data of a chunk, the row id of its entry followed by its seq.
+     */
+    private static byte[] chunkAad(long rowId, int seq) {
+        return ByteBuffer.allocate(12).putLong(rowId).putInt(seq).array();
+    }
+}
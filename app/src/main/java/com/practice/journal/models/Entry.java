@@ -1,5 +1,8 @@
 /**
- * Class for representing a Journal Entry.
+ * Class for representing a Journal Entry. The entries kept in memory by EntryStash might not hold
+ * their content, which is then read again a chunk at a time by EntryStash.openContent(), see
+ * isContentLoaded(). getContent() throws for such an entry, so a content that is not in memory
+ * is never mistaken for an empty one.
  * @author Aaron Alba
  */
 
@@ -9,11 +12,32 @@ import java.util.Date;
 import java.util.UUID;
 
 public class Entry {
+    /**
+     * Flag of the title in the dirty fields of an entry.
+     */
+    public static final int FIELD_TITLE = 1;
+
+    /**
+     * Flag of the date in the dirty fields of an entry.
+     */
+    public static final int FIELD_DATE = 1 << 1;
+
+    /**
+     * Flag of the content in the dirty fields of an entry.
+     */
+    public static final int FIELD_CONTENT = 1 << 2;
+
     /**
      * A unique id for this journal entry which will be used for identifying this entry.
      */
     private UUID mId;
 
+    /**
+     * The database row id of this entry, or 0 if the entry was not read from the database.
+     * Together with the date it forms the keyset used for paging through the entries.
+     */
+    private long mRowId;
+
     /**
      * The title of this journal entry.
      */
@@ -25,10 +49,20 @@ public class Entry {
     private Date mDate;
 
     /**
-     * The journal entry.
+     * The journal entry, null if it is not in memory.
      */
     private String mContent;
 
+    /**
+     * Whether mContent holds the content, false if the content was dropped from memory.
+     */
+    private boolean mContentLoaded = true;
+
+    /**
+     * The FIELD_ flags of the fields that were changed since the entry was loaded or last saved.
+     */
+    private int mDirtyFields;
+
 
 
 
@@ -48,11 +82,52 @@ public class Entry {
      * @param uuidString The string representation of the UUID
      */
     public Entry(String uuidString) {
-        this.mId = UUID.fromString(uuidString);
+        this(UUID.fromString(uuidString));
+    }
+
+
+    /**
+     * This constructor creates a new Entry using a given UUID. This is used for recreating an entry
+     * that is retrieved from a database.
+     * @param id The UUID of the entry
+     */
+    public Entry(UUID id) {
+        this.mId = id;
         this.mDate = new Date();
     }
 
 
+    /**
+     * This constructor creates an unchanged Entry from its summary and its content. This is used
+     * when the content was read separately from the rest of the entry, a chunk at a time.
+     * @param summary The summary of the entry.
+     * @param content The whole content of the entry.
+     */
+    public Entry(EntrySummary summary, String content) {
+        this.mId = summary.getId();
+        this.mRowId = summary.getRowId();
+        this.mTitle = summary.getTitle();
+        this.mDate = new Date(summary.getDate().getTime());
+        this.mContent = content;
+    }
+
+
+    /**
+     * This constructor creates a copy of the given Entry, including its dirty fields. The copy can
+     * be handed to the database thread while the original keeps being edited on the main thread.
+     * @param other The entry to be copied.
+     */
+    public Entry(Entry other) {
+        this.mId = other.mId;
+        this.mRowId = other.mRowId;
+        this.mTitle = other.mTitle;
+        this.mDate = new Date(other.mDate.getTime());
+        this.mContent = other.mContent;
+        this.mContentLoaded = other.mContentLoaded;
+        this.mDirtyFields = other.mDirtyFields;
+    }
+
+
 
 
     /**
@@ -64,6 +139,15 @@ public class Entry {
     }
 
 
+    /**
+     * Returns the database row id of this journal entry.
+     * @return the row id, or 0 if this entry was not read from the database.
+     */
+    public long getRowId() {
+        return mRowId;
+    }
+
+
     /**
      * Returns the title of this journal entry.
      * @return String containing the title of this entry.
@@ -83,20 +167,41 @@ public class Entry {
 
 
     /**
-     * Returns the content of this journal entry.
-     * @return String containing the content of the entry.
+     * Returns the content of this journal entry. An entry without content returns null, which is
+     * not the same as an entry whose content is not in memory, see isContentLoaded().
+     * @return String containing the content of the entry, null if the entry has no content.
+     * @throws IllegalStateException if the content is not in memory, read it with
+     *                               EntryStash.openContent() instead.
      */
     public String getContent() {
+        if (!mContentLoaded) {
+            throw new IllegalStateException("The content of entry " + mId + " is not loaded");
+        }
         return mContent;
     }
 
 
     /**
-     * Setter method for the content of this journal entry.
+     * Returns whether the content is in memory. Only an entry kept in memory by EntryStash can be
+     * without its content.
+     * @return true if the content is loaded.
+     */
+    public boolean isContentLoaded() {
+        return mContentLoaded;
+    }
+
+
+    /**
+     * Setter method for the content of this journal entry. A content that is not in memory can not
+     * be compared, setting it always marks the content as changed.
      * @param content The content to be set to this journal entry.
      */
     public void setContent(String content) {
-        mContent = content;
+        if (!mContentLoaded || !sameText(mContent, content)) {
+            mContent = content;
+            mContentLoaded = true;
+            mDirtyFields |= FIELD_CONTENT;
+        }
     }
 
 
@@ -105,7 +210,19 @@ public class Entry {
      * @param date The date to be set to this journal entry.
      */
     public void setDate(Date date) {
-        mDate = date;
+        if (mDate == null || date == null || mDate.getTime() != date.getTime()) {
+            mDate = date;
+            mDirtyFields |= FIELD_DATE;
+        }
+    }
+
+
+    /**
+     * Setter method for the database row id of this journal entry.
+     * @param rowId The row id of this entry in the entry table.
+     */
+    public void setRowId(long rowId) {
+        mRowId = rowId;
     }
 
 
@@ -114,6 +231,72 @@ public class Entry {
      * @param title The title to be set to this entry.
      */
     public void setTitle(String title) {
-        mTitle = title;
+        if (!sameText(mTitle, title)) {
+            mTitle = title;
+            mDirtyFields |= FIELD_TITLE;
+        }
+    }
+
+
+    /**
+     * Returns the fields that were changed since the entry was loaded or last saved.
+     * @return the FIELD_ flags of the changed fields, 0 if nothing was changed.
+     */
+    public int getDirtyFields() {
+        return mDirtyFields;
+    }
+
+
+    /**
+     * Returns whether any field was changed since the entry was loaded or last saved.
+     * @return true if the entry has changes that are not in the database.
+     */
+    public boolean isDirty() {
+        return mDirtyFields != 0;
+    }
+
+
+    /**
+     * Marks all of the fields as unchanged. Called once the entry is the same as the one in the database.
+     */
+    public void markClean() {
+        mDirtyFields = 0;
+    }
+
+
+    /*
+        Drops the content of this entry from memory, it is read again from the database when it
+        is needed. Used by EntryCache for the entries that it keeps, which check isContentLoaded()
+        before they read the content.
+     */
+    void unloadContent() {
+        mContent = null;
+        mContentLoaded = false;
+    }
+
+
+    /*
+        Marks the fields as unchanged that still hold the values of the given copy, once the copy
+        was saved. The fields that were changed after the copy was made stay dirty.
+     */
+    void markSaved(Entry saved) {
+        if (sameText(mTitle, saved.mTitle)) {
+            mDirtyFields &= ~FIELD_TITLE;
+        }
+        if (mDate != null && saved.mDate != null && mDate.getTime() == saved.mDate.getTime()) {
+            mDirtyFields &= ~FIELD_DATE;
+        }
+        if (mContentLoaded && saved.mContentLoaded && sameText(mContent, saved.mContent)) {
+            mDirtyFields &= ~FIELD_CONTENT;
+        }
+    }
+
+
+    /*
+        Null-safe equality of two strings where null is the same as an empty string, so that an
+        editor showing a missing title or content as an empty field does not mark it as changed.
+     */
+    private static boolean sameText(String a, String b) {
+        return a == null || a.isEmpty() ? b == null || b.isEmpty() : a.equals(b);
     }
 }
@@ -0,0 +1,134 @@
+/**
+ * Class that saves the Entry being edited in the background. Changes are only marked while the
+ * user edits and are written once the edits have been quiet for a while, or when flush() is
+ * called, so a burst of edits costs one write instead of one write per change. Nothing is written
+ * if no field of the Entry was changed since it was last saved. The Entry is only marked as saved
+ * once the write succeeded, so an edit is not lost if it fails. All methods must be called on the
+ * main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import android.database.sqlite.SQLiteException;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.practice.journal.db.DatabaseExecutor;
+
+import java.util.concurrent.Callable;
+
+public class EntryAutosaver {
+    /**
+     * The default time in milliseconds that the edits must be quiet before they are saved.
+     */
+    public static final long DEFAULT_QUIET_PERIOD = 2000;
+
+    // the stash that the entry is saved to
+    private final EntryStash mEntryStash;
+
+    // the time in milliseconds that the edits must be quiet before they are saved
+    private final long mQuietPeriod;
+
+    // schedules the save after the quiet period
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // the entry being edited
+    private Entry mEntry;
+
+    // the copy of the entry that is being written, null if no write is pending
+    private Entry mSaving;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+
+    /**
+     * Creates an autosaver.
+     * @param stash The stash that the entry is saved to.
+     * @param quietPeriod The time in milliseconds that the edits must be quiet before they are saved.
+     */
+    public EntryAutosaver(EntryStash stash, long quietPeriod) {
+        mEntryStash = stash;
+        mQuietPeriod = quietPeriod;
+    }
+
+
+    /**
+     * Sets the entry to be saved. Its dirty fields tell what was changed since it was loaded.
+     * @param entry The entry being edited.
+     */
+    public void setEntry(Entry entry) {
+        mHandler.removeCallbacks(mFlushRunnable);
+        mEntry = entry;
+        mSaving = null;
+    }
+
+
+    /**
+     * Tells that the entry was changed. The entry is saved once no other change is marked for the quiet period.
+     */
+    public void markDirty() {
+        if (mEntry == null || !mEntry.isDirty()) {
+            return;
+        }
+
+        // restart the quiet period
+        mHandler.removeCallbacks(mFlushRunnable);
+        mHandler.postDelayed(mFlushRunnable, mQuietPeriod);
+    }
+
+
+    /**
+     * Saves the entry now if it was changed since it was last saved. Called when the editor is
+     * left so no change is lost, calling it again without new changes does nothing.
+     */
+    public void flush() {
+        mHandler.removeCallbacks(mFlushRunnable);
+        if (mEntry == null || !mEntry.isDirty()) {
+            return;
+        }
+
+        // nothing was edited since the pending write was made
+        if (mSaving != null) {
+            Entry unsaved = new Entry(mEntry);
+            unsaved.markSaved(mSaving);
+            if (!unsaved.isDirty()) {
+                return;
+            }
+        }
+
+        // write a copy of the changed fields since the entry can still be edited meanwhile
+        final Entry edited = mEntry;
+        final Entry entry = new Entry(mEntry);
+        mSaving = entry;
+        DatabaseExecutor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                try {
+                    mEntryStash.updateEntry(entry.getId(), entry);
+                    return true;
+                } catch (IllegalStateException | SQLiteException e) {
+                    // the session was locked or the write failed, the entry stays dirty
+                    return false;
+                }
+            }
+        }, new DatabaseExecutor.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean saved) {
+                if (mSaving == entry) {
+                    mSaving = null;
+                }
+
+                // only the fields that were not edited again while the copy was written are clean
+                if (saved) {
+                    edited.markSaved(entry);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Class that keeps the most recently used entries in memory so that opening an entry that was just
+ * viewed or edited does not read it from the database again. The cache is bounded by the number of
+ * entries and by the size of their text, and the least recently used entries are dropped first.
+ * The cache holds its own copies of the entries, so the entries given to it or returned by it can be
+ * changed freely. An entry whose content was not read yet is cached without it, and only the
+ * contents in memory count towards the size of the cache. All methods can be called from any thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+class EntryCache {
+    // the maximum number of entries in the cache
+    private final int mMaxEntries;
+
+    // the maximum total size in bytes of the titles and contents of the entries in the cache
+    private final long mMaxBytes;
+
+    // the cached entries in access order, the least recently used first
+    private final LinkedHashMap<UUID, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // the total size in bytes of the titles and contents of the cached entries
+    private long mBytes;
+
+    // counts the writes to the cache, used for rejecting entries that were read before a write
+    private long mWriteCount;
+
+    // the number of get() calls that found and did not find the entry, for checking the hit ratio
+    private long mHitCount;
+    private long mMissCount;
+
+
+    /**
+     * Creates an empty cache.
+     * @param maxEntries The maximum number of entries in the cache.
+     * @param maxBytes The maximum total size in bytes of the titles and contents of the cached entries.
+     */
+    EntryCache(int maxEntries, long maxBytes) {
+        mMaxEntries = maxEntries;
+        mMaxBytes = maxBytes;
+    }
+
+
+    /**
+     * Returns a copy of the cached entry with the given id and counts a hit, or counts a miss and
+     * returns null if the entry is not cached.
+     * @param id The id of the entry.
+     * @return A copy of the entry, or null.
+     */
+    synchronized Entry get(UUID id) {
+        Entry entry = mEntries.get(id);
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return new Entry(entry);
+    }
+
+
+    /**
+     * Returns the number of writes made to the cache so far. Pass it to putLoaded() with an entry
+     * that is read from the database after calling this.
+     * @return The write count of the cache.
+     */
+    synchronized long getWriteCount() {
+        return mWriteCount;
+    }
+
+
+    /**
+     * Caches an entry that was read from the database, unless the entries were written since
+     * writeCount was taken, in which case the entry might already be out of date.
+     * @param entry The entry read from the database.
+     * @param writeCount The write count of the cache taken before the entry was read.
+     */
+    synchronized void putLoaded(Entry entry, long writeCount) {
+        if (writeCount == mWriteCount) {
+            add(entry);
+        }
+    }
+
+
+    /**
+     * Adds the content that was read from the database to the cached entry with the given id,
+     * unless the entries were written since writeCount was taken or the entry is no longer cached.
+     * @param id The id of the entry.
+     * @param content The whole content of the entry.
+     * @param writeCount The write count of the cache taken before the content was read.
+     */
+    synchronized void putContent(UUID id, String content, long writeCount) {
+        Entry entry = mEntries.get(id);
+        if (entry == null || writeCount != mWriteCount || entry.isContentLoaded()) {
+            return;
+        }
+
+        Entry loaded = new Entry(entry);
+        loaded.setContent(content);
+        add(loaded);
+    }
+
+
+    /**
+     * Caches an entry that was just written to the database, replacing the old copy of it.
+     * @param entry The entry that was written.
+     */
+    synchronized void put(Entry entry) {
+        mWriteCount++;
+        add(entry);
+    }
+
+
+    /**
+     * Removes the entry with the given id from the cache.
+     * @param id The id of the entry.
+     */
+    synchronized void remove(UUID id) {
+        mWriteCount++;
+        Entry old = mEntries.remove(id);
+        if (old != null) {
+            mBytes -= sizeOf(old);
+        }
+    }
+
+
+    /**
+     * Removes all of the entries from the cache.
+     */
+    synchronized void clear() {
+        mWriteCount++;
+        mEntries.clear();
+        mBytes = 0;
+    }
+
+
+    /**
+     * Releases the contents of the cached entries, which are read again from the database by the
+     * next EntryStash.openContent(). Only the titles and dates stay in memory.
+     */
+    synchronized void releaseContents() {
+        mBytes = 0;
+        for (Entry entry : mEntries.values()) {
+            entry.unloadContent();
+            mBytes += sizeOf(entry);
+        }
+    }
+
+
+    /**
+     * Returns the number of times get() found the entry in the cache.
+     * @return The hit count.
+     */
+    synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+
+    /**
+     * Returns the number of times get() did not find the entry in the cache.
+     * @return The miss count.
+     */
+    synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+
+    /*
+        Stores a clean copy of the entry and drops the least recently used entries until the
+        cache is within its bounds. An entry bigger than the whole cache is not stored.
+     */
+    private void add(Entry entry) {
+        Entry copy = new Entry(entry);
+        copy.markClean();
+
+        Entry old = mEntries.put(copy.getId(), copy);
+        if (old != null) {
+            mBytes -= sizeOf(old);
+        }
+        mBytes += sizeOf(copy);
+
+        Iterator<Map.Entry<UUID, Entry>> iterator = mEntries.entrySet().iterator();
+        while ((mEntries.size() > mMaxEntries || mBytes > mMaxBytes) && iterator.hasNext()) {
+            mBytes -= sizeOf(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+
+    /*
+        Returns the approximate size in bytes of the text of an entry, two bytes per character.
+     */
+    private static long sizeOf(Entry entry) {
+        long chars = 0;
+        if (entry.getTitle() != null) {
+            chars += entry.getTitle().length();
+        }
+        if (entry.isContentLoaded() && entry.getContent() != null) {
+            chars += entry.getContent().length();
+        }
+        return chars * 2;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Class for representing a change that was made to the journal entries through EntryStash.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import java.util.UUID;
+
+public class EntryChange {
+    /**
+     * The entry was added.
+     */
+    public static final int INSERTED = 1;
+
+    /**
+     * Some fields of the entry were changed, see getFields().
+     */
+    public static final int UPDATED = 2;
+
+    /**
+     * The entry was removed.
+     */
+    public static final int DELETED = 3;
+
+    /**
+     * Too many entries were changed at once to tell about each of them, for example by an import,
+     * every entry should be read again. The change has no id.
+     */
+    public static final int RELOADED = 4;
+
+    /**
+     * One of INSERTED, UPDATED, DELETED or RELOADED.
+     */
+    private final int mType;
+
+    /**
+     * The id of the changed entry, null for RELOADED.
+     */
+    private final UUID mId;
+
+    /**
+     * The Entry.FIELD_ flags of the changed fields.
+     */
+    private final int mFields;
+
+
+
+
+    /**
+     * Creates a change event.
+     * @param type One of INSERTED, UPDATED, DELETED or RELOADED.
+     * @param id The id of the changed entry, null for RELOADED.
+     * @param fields The Entry.FIELD_ flags of the changed fields.
+     */
+    public EntryChange(int type, UUID id, int fields) {
+        this.mType = type;
+        this.mId = id;
+        this.mFields = fields;
+    }
+
+
+
+
+    /**
+     * Returns what kind of change was made.
+     * @return one of INSERTED, UPDATED, DELETED or RELOADED.
+     */
+    public int getType() {
+        return mType;
+    }
+
+
+    /**
+     * Returns the id of the changed entry.
+     * @return UUID of the entry, or null for RELOADED.
+     */
+    public UUID getId() {
+        return mId;
+    }
+
+
+    /**
+     * Returns the fields that were changed. All of the fields are set for inserts, deletes and reloads.
+     * @return the Entry.FIELD_ flags of the changed fields.
+     */
+    public int getFields() {
+        return mFields;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Class that delivers the changes made to the journal entries to the screens that observe them, so
+ * that a screen only updates what was changed instead of reading all of its data again. Changes are
+ * published from the database thread right after they are committed and delivered on the main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class EntryChangeBus {
+    // the observers, only used on the main thread
+    private final List<EntryStash.OnEntryChangedListener> mListeners = new ArrayList<>();
+
+    // delivers the changes on the main thread
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+
+    /**
+     * Delivers the given change to the listeners on the main thread. Can be called from any thread.
+     * @param change The change that was committed.
+     */
+    void publish(final EntryChange change) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // a listener may remove itself while the change is delivered
+                for (EntryStash.OnEntryChangedListener listener : new ArrayList<>(mListeners)) {
+                    listener.onEntryChanged(change);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Adds a listener that receives the changes until the given owner is destroyed. Must be called
+     * on the main thread.
+     * @param owner The lifecycle that the listener is bound to.
+     * @param listener The listener.
+     */
+    void observe(LifecycleOwner owner, EntryStash.OnEntryChangedListener listener) {
+        final Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+
+        mListeners.add(listener);
+        lifecycle.addObserver(new ListenerRemover(lifecycle, listener));
+    }
+
+
+    /*
+        Observer that removes a listener when its lifecycle owner is destroyed.
+     */
+    private class ListenerRemover implements LifecycleObserver {
+        private final Lifecycle mLifecycle;
+        private final EntryStash.OnEntryChangedListener mListener;
+
+        ListenerRemover(Lifecycle lifecycle, EntryStash.OnEntryChangedListener listener) {
+            mLifecycle = lifecycle;
+            mListener = listener;
+        }
+
+        @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+        public void onDestroy() {
+            mListeners.remove(mListener);
+            mLifecycle.removeObserver(this);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Class for reading the content of a journal entry a chunk at a time instead of all at once, so
+ * that the start of a very long entry can be shown while the rest of it is still being read.
+ * A reader is returned by EntryStash.openContent(). It reads the content from memory if the entry
+ * is cached, otherwise each read runs a query, so it must be done on a database thread, but the
+ * reader holds no database resources between reads and can be passed from one task to the next.
+ * Like any Reader it must not be used by two threads at once, but it can be closed from another
+ * thread to stop a task that is still reading it.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import com.practice.journal.db.DatabaseSchema.ContentChunkTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.UUID;
+
+public class EntryContentReader extends Reader {
+    // the stash that reads the chunks, null if the content is read from memory
+    private final EntryStash mEntryStash;
+
+    // the row id of the entry whose content is read
+    private final long mRowId;
+
+    // the content when it is read from memory, and the position of the next chunk in it
+    private final String mContent;
+    private int mContentPosition;
+
+    // the id of the entry and the write count of the cache when the reader was opened, used for
+    // caching the content once it is read to its end. The id is null if it is not cached
+    private final UUID mCacheId;
+    private final long mCacheWriteCount;
+
+    // the content read so far, null once it is too long to be cached or if it is not cached
+    private StringBuilder mCacheContent;
+    private final int mCacheMaxChars;
+
+    // the seq of the next chunk to be read
+    private int mNextSeq;
+
+    // the chunk being read by read(char[], int, int) and the position in it
+    private String mChunk;
+    private int mPosition;
+
+    // set by close(), which can be called from the main thread while a database thread reads
+    private volatile boolean mClosed;
+
+
+    /**
+     * Creates a reader positioned at the start of the content, which reads the chunks from the
+     * database.
+     * @param stash The stash that reads the chunks.
+     * @param rowId The row id of the entry.
+     */
+    EntryContentReader(EntryStash stash, long rowId) {
+        this(stash, rowId, null, null, 0, 0);
+    }
+
+
+    /**
+     * Creates a reader positioned at the start of the content, which reads the chunks from the
+     * database and gives the whole content to the cache of the stash once it is read to its end.
+     * @param stash The stash that reads the chunks.
+     * @param rowId The row id of the entry.
+     * @param id The id of the entry.
+     * @param writeCount The write count of the cache taken before the reader was opened.
+     * @param maxChars The length of the longest content that is cached.
+     */
+    EntryContentReader(EntryStash stash, long rowId, UUID id, long writeCount, int maxChars) {
+        this(stash, rowId, null, id, writeCount, maxChars);
+    }
+
+
+    /**
+     * Creates a reader over a content that is already in memory.
+     * @param content The content, null for an entry without content.
+     */
+    EntryContentReader(String content) {
+        this(null, 0, content, null, 0, 0);
+    }
+
+
+    private EntryContentReader(EntryStash stash, long rowId, String content, UUID cacheId,
+                               long cacheWriteCount, int cacheMaxChars) {
+        mEntryStash = stash;
+        mRowId = rowId;
+        mContent = content;
+        mCacheId = cacheId;
+        mCacheWriteCount = cacheWriteCount;
+        mCacheMaxChars = cacheMaxChars;
+        if (cacheId != null) {
+            mCacheContent = new StringBuilder();
+        }
+    }
+
+
+    /**
+     * Returns the rest of the chunk being read, or the next chunk of the content.
+     * @return The text of the chunk, or null at the end of the content or if the reader is closed.
+     */
+    public String readChunk() {
+        if (mClosed) {
+            return null;
+        }
+
+        // the rest of a chunk that was partly read by read(char[], int, int)
+        if (mChunk != null) {
+            String rest = mChunk.substring(mPosition);
+            mChunk = null;
+            return rest;
+        }
+
+        return nextChunk();
+    }
+
+
+    /**
+     * Reads whole chunks until at least maxChars characters are read or the content ends, so that
+     * a long content can be shown in a few big steps instead of many small ones.
+     * @param maxChars The number of characters after which no more chunks are read.
+     * @return The text of the chunks, or null at the end of the content or if the reader is closed.
+     */
+    public String readChunks(int maxChars) {
+        String chunk = readChunk();
+        if (chunk == null || chunk.length() >= maxChars) {
+            return chunk;
+        }
+
+        StringBuilder text = new StringBuilder(maxChars);
+        text.append(chunk);
+        while (text.length() < maxChars && (chunk = readChunk()) != null) {
+            text.append(chunk);
+        }
+        return text.toString();
+    }
+
+
+    @Override
+    public int read(char[] buffer, int offset, int count) throws IOException {
+        if (mClosed) {
+            throw new IOException("The reader is closed");
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        // move to the next chunk once this one has been read
+        if (mChunk == null) {
+            mChunk = nextChunk();
+            if (mChunk == null) {
+                return -1;
+            }
+            mPosition = 0;
+        }
+
+        int read = Math.min(count, mChunk.length() - mPosition);
+        mChunk.getChars(mPosition, mPosition + read, buffer, offset);
+        mPosition += read;
+        if (mPosition == mChunk.length()) {
+            mChunk = null;
+        }
+        return read;
+    }
+
+
+    @Override
+    public void close() {
+        mClosed = true;
+        mChunk = null;
+    }
+
+
+    /*
+        Returns the next chunk of the content, from memory or from the database, or null at the
+        end of the content. A content read from the database is given to the cache at its end.
+     */
+    private String nextChunk() {
+        if (mEntryStash == null) {
+            return nextMemoryChunk();
+        }
+
+        String chunk = mEntryStash.readContentChunk(mRowId, mNextSeq);
+        if (chunk != null) {
+            mNextSeq++;
+            if (mCacheContent != null) {
+                mCacheContent.append(chunk);
+                if (mCacheContent.length() > mCacheMaxChars) {
+                    mCacheContent = null;
+                }
+            }
+        } else if (mCacheContent != null && !mClosed) {
+            // a null or empty content is stored without chunks, and read back as null
+            mEntryStash.cacheContent(mCacheId,
+                    mNextSeq == 0 ? null : mCacheContent.toString(), mCacheWriteCount);
+            mCacheContent = null;
+        }
+        return chunk;
+    }
+
+
+    /*
+        Returns the next part of the content in memory, split like the chunks in the database.
+     */
+    private String nextMemoryChunk() {
+        if (mContent == null || mContentPosition == mContent.length()) {
+            return null;
+        }
+
+        int start = mContentPosition;
+        int end = Math.min(start + ContentChunkTable.CHUNK_CHARS, mContent.length());
+        if (end < mContent.length() && Character.isHighSurrogate(mContent.charAt(end - 1))) {
+            end--;
+        }
+        mContentPosition = end;
+        return mContent.substring(start, end);
+    }
+}
@@ -7,31 +7,207 @@
 
 package com.practice.journal.models;
 
-import android.content.ContentValues;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+
+import androidx.lifecycle.LifecycleOwner;
 
 import com.practice.journal.db.EntryCursorWrapper;
 import com.practice.journal.db.DatabaseOpenHelper;
+import com.practice.journal.db.DatabaseSchema.ContentChunkTable;
+import com.practice.journal.db.DatabaseSchema.EntryFtsTable;
 import com.practice.journal.db.DatabaseSchema.EntryTable;
+import com.practice.journal.db.StatementCache;
+import com.practice.journal.db.UuidCodec;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.UUID;
 
 public class EntryStash {
+
+    /**
+     * Interface for receiving the changes made to the journal entries on the main thread.
+     */
+    public interface OnEntryChangedListener {
+        void onEntryChanged(EntryChange change);
+    }
+
+
+    // the order in which the entries are listed, also the keyset used for paging
+    private static final String PAGE_ORDER = EntryTable.COLS.DATE + " ASC, " + EntryTable.COLS.ID + " ASC";
+
+    // reads the summaries of the page that comes after a given (date, _id) key in PAGE_ORDER, the
+    // arguments are the date, the row id and the limit. They are bound as integers, see
+    // getSummariesPage(), since a date bound as text would not compare equal to the stored one
+    private static final String PAGE_AFTER_KEY_QUERY = "SELECT "
+            + TextUtils.join(", ", EntryCursorWrapper.SUMMARY_COLUMNS) + " FROM " + EntryTable.NAME
+            + " WHERE " + EntryTable.COLS.DATE + " > ?1 OR (" + EntryTable.COLS.DATE + " = ?1 AND "
+            + EntryTable.COLS.ID + " > ?2) ORDER BY " + PAGE_ORDER + " LIMIT ?3";
+
+    // selects the rows that come after a given _id, the keyset used by the export
+    private static final String AFTER_ROW_ID = EntryTable.COLS.ID + " > ?";
+
+    // selects the row of a single entry by the two halves of its UUID
+    private static final String WHERE_UUID = EntryTable.COLS.UUID_MSB + " = ? AND "
+            + EntryTable.COLS.UUID_LSB + " = ?";
+
+    // scores every match of a search using only the full-text index
+    private static final String SEARCH_SCORE_QUERY = "SELECT " + EntryFtsTable.COLS.DOCID
+            + ", matchinfo(" + EntryFtsTable.NAME + ", 'pcx') FROM " + EntryFtsTable.NAME
+            + " WHERE " + EntryFtsTable.NAME + " MATCH ?";
+
+    // reads the summary and the marked title of the best matches, the docid list is appended to it
+    private static final String SEARCH_RESULT_QUERY = "SELECT e." + EntryTable.COLS.ID
+            + ", e." + EntryTable.COLS.UUID_MSB + ", e." + EntryTable.COLS.UUID_LSB
+            + ", e." + EntryTable.COLS.TITLE + ", e." + EntryTable.COLS.DATE
+            + ", snippet(" + EntryFtsTable.NAME + ", ?, ?, '\u2026', -1, 64) AS snippet"
+            + " FROM " + EntryFtsTable.NAME + " JOIN " + EntryTable.NAME + " e"
+            + " ON e." + EntryTable.COLS.ID + " = " + EntryFtsTable.NAME + "." + EntryFtsTable.COLS.DOCID
+            + " WHERE " + EntryFtsTable.NAME + " MATCH ? AND " + EntryFtsTable.NAME + "."
+            + EntryFtsTable.COLS.DOCID + " IN ";
+
+    // inserts a new entry, the arguments are the uuid halves, title and date. The content is
+    // written to the content chunk table afterwards
+    private static final String INSERT_SQL = "INSERT INTO " + EntryTable.NAME + " ("
+            + EntryTable.COLS.UUID_MSB + ", " + EntryTable.COLS.UUID_LSB + ", "
+            + EntryTable.COLS.TITLE + ", " + EntryTable.COLS.DATE + ") VALUES (?, ?, ?, ?)";
+
+    // deletes an entry, the arguments are the uuid halves. Triggers remove its chunks and its terms
+    private static final String DELETE_SQL = "DELETE FROM " + EntryTable.NAME + " WHERE " + WHERE_UUID;
+
+    // looks up the row id of an entry, the arguments are the uuid halves
+    private static final String ROW_ID_SQL = "SELECT " + EntryTable.COLS.ID + " FROM " + EntryTable.NAME
+            + " WHERE " + WHERE_UUID;
+
+    // the fields of an entry that are stored in the entry table
+    private static final int ROW_FIELDS = Entry.FIELD_TITLE | Entry.FIELD_DATE;
+
+    // the UPDATE statement of each combination of dirty row fields, indexed by the Entry.FIELD_ flags,
+    // the last argument is the row id
+    private static final String[] UPDATE_SQL = new String[ROW_FIELDS + 1];
+
+    static {
+        for (int fields = 1; fields < UPDATE_SQL.length; fields++) {
+            StringBuilder sql = new StringBuilder("UPDATE " + EntryTable.NAME + " SET ");
+            if ((fields & Entry.FIELD_TITLE) != 0) {
+                sql.append(EntryTable.COLS.TITLE).append(" = ?, ");
+            }
+            if ((fields & Entry.FIELD_DATE) != 0) {
+                sql.append(EntryTable.COLS.DATE).append(" = ?, ");
+            }
+            sql.setLength(sql.length() - 2);
+            UPDATE_SQL[fields] = sql.append(" WHERE ").append(EntryTable.COLS.ID).append(" = ?").toString();
+        }
+    }
+
+    // reads one encrypted chunk of a content, the arguments are the row id of the entry and the seq
+    // of the chunk. A statement can not return a blob, so this is run as a query
+    private static final String CHUNK_QUERY = "SELECT " + ContentChunkTable.COLS.DATA
+            + " FROM " + ContentChunkTable.NAME + " WHERE " + ContentChunkTable.COLS.ENTRY_ID
+            + " = ? AND " + ContentChunkTable.COLS.SEQ + " = ?";
+
+    // reads all of the encrypted chunks of a content in order, the argument is the row id of the entry
+    private static final String CHUNKS_QUERY = "SELECT " + ContentChunkTable.COLS.SEQ + ", "
+            + ContentChunkTable.COLS.DATA + " FROM " + ContentChunkTable.NAME + " WHERE "
+            + ContentChunkTable.COLS.ENTRY_ID + " = ? ORDER BY " + ContentChunkTable.COLS.SEQ;
+
+    // writes one chunk of a content, the arguments are the row id, the seq and the encrypted text of the chunk
+    private static final String INSERT_CHUNK_SQL = "INSERT INTO " + ContentChunkTable.NAME + " ("
+            + ContentChunkTable.COLS.ENTRY_ID + ", " + ContentChunkTable.COLS.SEQ + ", "
+            + ContentChunkTable.COLS.DATA + ") VALUES (?, ?, ?)";
+
+    // reads a batch of the chunks that are still in plain text
+    private static final String PLAIN_CHUNKS_QUERY = "SELECT " + ContentChunkTable.COLS.ENTRY_ID + ", "
+            + ContentChunkTable.COLS.SEQ + ", " + ContentChunkTable.COLS.TEXT + " FROM " + ContentChunkTable.NAME
+            + " WHERE " + ContentChunkTable.COLS.DATA + " IS NULL LIMIT 16";
+
+    // replaces the plain text of a chunk with its encrypted text, the arguments are the encrypted
+    // text, the row id and the seq
+    private static final String ENCRYPT_CHUNK_SQL = "UPDATE " + ContentChunkTable.NAME + " SET "
+            + ContentChunkTable.COLS.TEXT + " = NULL, " + ContentChunkTable.COLS.DATA + " = ? WHERE "
+            + ContentChunkTable.COLS.ENTRY_ID + " = ? AND " + ContentChunkTable.COLS.SEQ + " = ?";
+
+    // removes the chunks of a content, the argument is the row id of the entry
+    private static final String DELETE_CHUNKS_SQL = "DELETE FROM " + ContentChunkTable.NAME
+            + " WHERE " + ContentChunkTable.COLS.ENTRY_ID + " = ?";
+
+    // how much a matched term counts in each column of the full-text index, which only has the
+    // title since the contents are encrypted
+    private static final double[] SEARCH_COLUMN_WEIGHTS = { 1.0 };
+
+    // the maximum number of entries kept in memory by getSummary() and openContent()
+    private static final int CACHE_MAX_ENTRIES = 32;
+
+    // the maximum total size of the text of the entries kept in memory, a content is only cached
+    // if it takes at most half of it
+    private static final long CACHE_MAX_BYTES = 1024 * 1024;
+
+    // the flags of all of the fields of an entry
+    private static final int ALL_FIELDS = Entry.FIELD_TITLE | Entry.FIELD_DATE | Entry.FIELD_CONTENT;
+
     // the singleton instance of this class
     private static EntryStash sEntryStash;
 
-    // the database that stores the entries
-    private SQLiteDatabase mDatabase;
+    // used for opening the database
+    private final Context mContext;
+
+    // the database that stores the entries, null until it is first used
+    private volatile SQLiteDatabase mDatabase;
+
+    // the compiled statements of the writes, null until they are first used
+    private volatile StatementCache mStatements;
+
+    // the recently used entries, kept up to date by the writes of this class
+    private final EntryCache mCache = new EntryCache(CACHE_MAX_ENTRIES, CACHE_MAX_BYTES);
+
+    // delivers the changes made through this class to the observing screens
+    private final EntryChangeBus mChanges = new EntryChangeBus();
 
 
     // Private constructor to avoid instantiating objects from this class
     private EntryStash(Context context) {
-        // create or open the database using the EntryDbOpenHelper class
-        mDatabase = DatabaseOpenHelper.getDatabase(context);
+        // the database is opened by the first database thread that needs it, see getDatabase()
+        mContext = context.getApplicationContext();
+
+        // the contents cached for the viewer and the editor can be read again, they are the first
+        // thing to go when memory runs low. The titles and dates stay cached
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                    mCache.releaseContents();
+                }
+            }
+
+            @Override
+            public void onLowMemory() {
+                mCache.releaseContents();
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {}
+        });
     }
 
 
@@ -49,31 +225,166 @@ public class EntryStash {
 
 
     /**
-     * Returns the list of journal entries to be used by the RecyclerView for listing the Entries
-     * @return List of entries
+     * Adds a listener that is told on the main thread about every entry that is added, updated or
+     * deleted through this class, until the given owner, usually a Fragment, is destroyed. Must be
+     * called on the main thread.
+     * @param owner The lifecycle that the listener is bound to.
+     * @param listener The listener.
+     */
+    public void observe(LifecycleOwner owner, OnEntryChangedListener listener) {
+        mChanges.observe(owner, listener);
+    }
+
+
+    /**
+     * Returns the summaries of the first page of journal entries ordered by date. Use the date and
+     * row id of the last summary in the returned list with getSummariesPage(long, long, int) to get
+     * the next page. Only the columns shown in the list are read, never the content.
+     * @param limit The maximum number of entries in the page.
+     * @return List of at most limit entry summaries.
      */
-    public List<Entry> getEntries() {
-        // create the list the will hold the Entry objects
-        List<Entry> list = new ArrayList<>();
+    public List<EntrySummary> getSummariesPage(int limit) {
+        return readSummaries(querySummaries(null, null, String.valueOf(limit)));
+    }
+
+
+    /**
+     * Returns the summaries of the page of journal entries that comes right after the given keyset
+     * position. The position is the (date, row id) pair of the last entry of the previous page, so
+     * the query seeks directly to it using the (date, _id) index instead of skipping over the
+     * earlier rows.
+     * @param afterDate The date in milliseconds of the last entry of the previous page.
+     * @param afterId The row id of the last entry of the previous page.
+     * @param limit The maximum number of entries in the page.
+     * @return List of at most limit entry summaries, empty if there are no more entries.
+     */
+    public List<EntrySummary> getSummariesPage(final long afterDate, final long afterId, final int limit) {
+        // rawQuery() can only bind strings, so the query binds its own arguments
+        Cursor cursor = getDatabase().rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+                query.bindLong(1, afterDate);
+                query.bindLong(2, afterId);
+                query.bindLong(3, limit);
+                return new SQLiteCursor(driver, editTable, query);
+            }
+        }, PAGE_AFTER_KEY_QUERY, null, EntryTable.NAME);
+
+        return readSummaries(new EntryCursorWrapper(cursor));
+    }
 
-        // SELECT all of the rows in the database by passing null to the whereClause
-        EntryCursorWrapper cursor = queryEntries(null, null);
 
+    /**
+     * Returns the summary of a single journal entry. The recently used entries are kept in memory,
+     * so the summary of an entry that was just viewed or edited is not read again.
+     * @param id The id of the entry.
+     * @return The summary of the entry, or null if there is no such entry.
+     */
+    public EntrySummary getSummary(UUID id) {
+        Entry cached = mCache.get(id);
+        if (cached != null) {
+            return new EntrySummary(cached.getRowId(), cached.getId(), cached.getTitle(), cached.getDate());
+        }
+
+        // a summary read while the entry is being written is not cached, the write caches the new one
+        long writeCount = mCache.getWriteCount();
+
+        EntrySummary summary;
+        EntryCursorWrapper cursor = querySummaries(WHERE_UUID, UuidCodec.toArgs(id), null);
         try {
-            // move the cursor to the first entry
-            cursor.moveToFirst();
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            summary = cursor.getEntrySummary();
+        } finally {
+            cursor.close();
+        }
 
-            // iterate over each entry
-            while(!cursor.isAfterLast()) {
-                list.add(cursor.getEntry()); // add the Entry to the list
+        // cached without its content, which is added once openContent() reads all of it
+        Entry entry = new Entry(summary, null);
+        entry.unloadContent();
+        mCache.putLoaded(entry, writeCount);
+        return summary;
+    }
 
-                cursor.moveToNext();    // move to the next entry
+
+    /**
+     * Searches the titles of the journal entries using the full-text index. The contents are
+     * encrypted, so they are not indexed. The words of the query must all appear in a title, the
+     * last word is matched as a prefix so results can be shown while the user types.
+     * @param query The text typed by the user.
+     * @param limit The maximum number of results.
+     * @return List of at most limit results, best match first.
+     */
+    public List<SearchResult> search(String query, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        String match = toMatchExpression(query);
+        if (match == null || limit < 1) {
+            return results;
+        }
+
+        // score every match from its matchinfo only, keeping the best ones in a min-heap
+        PriorityQueue<ScoredDoc> best = new PriorityQueue<>(limit, new Comparator<ScoredDoc>() {
+            @Override
+            public int compare(ScoredDoc a, ScoredDoc b) {
+                return Double.compare(a.score, b.score);
+            }
+        });
+        Cursor cursor = getDatabase().rawQuery(SEARCH_SCORE_QUERY, new String[] { match });
+        try {
+            while (cursor.moveToNext()) {
+                double score = scoreMatch(cursor.getBlob(1));
+                if (best.size() < limit) {
+                    best.add(new ScoredDoc(cursor.getLong(0), score));
+                } else if (score > best.peek().score) {
+                    best.poll();
+                    best.add(new ScoredDoc(cursor.getLong(0), score));
+                }
             }
         } finally {
             cursor.close();
         }
 
-        return list;
+        if (best.isEmpty()) {
+            return results;
+        }
+
+        // read the summaries and snippets of the best matches only
+        Map<Long, Double> scores = new HashMap<>();
+        StringBuilder docIds = new StringBuilder("(");
+        for (ScoredDoc doc : best) {
+            scores.put(doc.docId, doc.score);
+            if (docIds.length() > 1) {
+                docIds.append(',');
+            }
+            docIds.append(doc.docId);
+        }
+        docIds.append(')');
+
+        EntryCursorWrapper resultCursor = new EntryCursorWrapper(getDatabase().rawQuery(
+                SEARCH_RESULT_QUERY + docIds,
+                new String[] { SearchResult.MATCH_START, SearchResult.MATCH_END, match }));
+        try {
+            int snippetIndex = resultCursor.getColumnIndex("snippet");
+            while (resultCursor.moveToNext()) {
+                EntrySummary summary = resultCursor.getEntrySummary();
+                results.add(new SearchResult(summary,
+                        resultCursor.getString(snippetIndex),
+                        scores.get(summary.getRowId())));
+            }
+        } finally {
+            resultCursor.close();
+        }
+
+        // best match first
+        Collections.sort(results, new Comparator<SearchResult>() {
+            @Override
+            public int compare(SearchResult a, SearchResult b) {
+                return Double.compare(b.getScore(), a.getScore());
+            }
+        });
+
+        return results;
     }
 
 
@@ -82,32 +393,88 @@ public class EntryStash {
      * @param entry The entry to be added to the database.
      */
     public void addEntry(Entry entry) {
-        // create the content values from the given entry
-        ContentValues data = getContentValues(entry);
+        // the row, the chunks and the terms of the entry are written in one transaction
+        addEntries(Collections.singletonList(entry));
+    }
 
-        // insert data to the database
-        mDatabase.insert(EntryTable.NAME, null, data);
+
+    /**
+     * Adds the given entries to the database of journal entries in a single transaction, so adding
+     * many entries costs one commit instead of one commit per entry. Either all of the entries are
+     * added or none of them are.
+     * @param entries The entries to be added to the database.
+     */
+    public void addEntries(Collection<Entry> entries) {
+        getDatabase().beginTransaction();
+        try {
+            for (Entry entry : entries) {
+                insert(entry);
+            }
+            getDatabase().setTransactionSuccessful();
+        } finally {
+            getDatabase().endTransaction();
+        }
+
+        // the entries are only clean and cached once the transaction has been committed
+        for (Entry entry : entries) {
+            entry.markClean();
+            mCache.put(entry);
+            mChanges.publish(new EntryChange(EntryChange.INSERTED, entry.getId(), ALL_FIELDS));
+        }
     }
 
 
     /**
-     * Updates an entry in the database of journal entries.
+     * Updates an entry in the database of journal entries. Only the fields that were changed since
+     * the entry was loaded are written, so changing the date does not rewrite the content, and
+     * nothing is written for an entry without changes. The entry is marked clean afterwards.
      * @param id The id of the Entry to be updated.
      * @param entry The entry containing the updated data
      */
     public void updateEntry(UUID id, Entry entry) {
-        // get the uuid of the entry
-        String uuidString = entry.getId().toString();
+        // nothing to write
+        if (!entry.isDirty()) {
+            return;
+        }
 
-        // create the content values which will be passed to the update statement
-        ContentValues data = getContentValues(entry);
+        // the row, the chunks and the terms of the entry are written in one transaction
+        updateEntries(Collections.singletonList(entry));
+    }
 
-        // update the data on the database
-        mDatabase.update(
-                EntryTable.NAME,
-                data,
-                EntryTable.COLS.UUID + "= ? ",
-                new String[] { uuidString });
+
+    /**
+     * Updates the given entries in the database of journal entries in a single transaction. As with
+     * updateEntry(UUID, Entry) only the changed fields are written and the entries are marked clean
+     * afterwards. Either all of the entries are updated or none of them are.
+     * @param entries The entries containing the updated data.
+     */
+    public void updateEntries(Collection<Entry> entries) {
+        List<Entry> written = new ArrayList<>(entries.size());
+        List<EntryChange> changes = new ArrayList<>(entries.size());
+        getDatabase().beginTransaction();
+        try {
+            for (Entry entry : entries) {
+                // an entry that was deleted meanwhile is not written
+                if (entry.isDirty() && update(entry)) {
+                    written.add(entry);
+                    changes.add(new EntryChange(EntryChange.UPDATED, entry.getId(), entry.getDirtyFields()));
+                }
+            }
+            getDatabase().setTransactionSuccessful();
+        } finally {
+            getDatabase().endTransaction();
+        }
+
+        // the entries are only clean and cached once the transaction has been committed
+        for (Entry entry : entries) {
+            entry.markClean();
+        }
+        for (Entry entry : written) {
+            mCache.put(entry);
+        }
+        for (EntryChange change : changes) {
+            mChanges.publish(change);
+        }
     }
 
 
@@ -116,86 +483,460 @@ public class EntryStash {
      * @param id The id of the Entry to be deleted.
      */
     public void deleteEntry(UUID id) {
-        // get the id of the entry to be deleted
-        String uuidString = id.toString();
-
-        // run the delete operation on the database
-        mDatabase.delete(EntryTable.NAME,
-                EntryTable.COLS.UUID + " = ?",
-                new String[] { uuidString });
+        delete(id);
+        mCache.remove(id);
+        mChanges.publish(new EntryChange(EntryChange.DELETED, id, ALL_FIELDS));
     }
 
 
     /**
-     * Returns an entry from the database of journal entries.
-     * @param id The id of the entry to be retrieved.
-     * @return The matching Entry object.
+     * Removes the entries with the given ids in a single transaction, so removing many entries costs
+     * one commit instead of one commit per entry. Either all of the entries are removed or none of
+     * them are.
+     * @param ids The ids of the entries to be deleted.
      */
-    public Entry getEntry(UUID id) {
-        // convert uuid to string
-        String uuidString = id.toString();
+    public void deleteEntries(Collection<UUID> ids) {
+        getDatabase().beginTransaction();
+        try {
+            for (UUID id : ids) {
+                delete(id);
+            }
+            getDatabase().setTransactionSuccessful();
+        } finally {
+            getDatabase().endTransaction();
+        }
 
-        // query the database
-        EntryCursorWrapper cursorWrapper = queryEntries(EntryTable.COLS.UUID + " = ?", new String[] { uuidString });
+        for (UUID id : ids) {
+            mCache.remove(id);
+            mChanges.publish(new EntryChange(EntryChange.DELETED, id, ALL_FIELDS));
+        }
+    }
 
-        // check if the cursor has some items
-        if (cursorWrapper.getCount() == 0) {
+
+    /**
+     * Opens a reader over the content of an entry, which reads the content a chunk at a time. Use
+     * it to show the start of a long entry before the rest is read. The content of a cached entry
+     * is read from memory. Otherwise it is read from the database, and once it is read to its end
+     * it is kept in the cache with the entry, unless it is too long.
+     * @param id The id of the entry.
+     * @return The reader positioned at the start of the content, or null if there is no such entry.
+     */
+    public EntryContentReader openContent(UUID id) {
+        Entry cached = mCache.get(id);
+        if (cached != null && cached.isContentLoaded()) {
+            return new EntryContentReader(cached.getContent());
+        }
+
+        long writeCount = mCache.getWriteCount();
+        long rowId = cached != null ? cached.getRowId() : findRowId(id);
+        if (rowId < 0) {
             return null;
         }
+        return new EntryContentReader(this, rowId, id, writeCount, (int) (CACHE_MAX_BYTES / 4));
+    }
+
+
+    /**
+     * Returns the number of getSummary() and openContent() calls that found the entry in memory.
+     * Together with getCacheMissCount() it gives the hit ratio of the cache.
+     * @return The number of cache hits.
+     */
+    public long getCacheHitCount() {
+        return mCache.getHitCount();
+    }
+
 
-        // move the cursor to the first item
+    /**
+     * Returns the number of getSummary() and openContent() calls that had to read the database.
+     * @return The number of cache misses.
+     */
+    public long getCacheMissCount() {
+        return mCache.getMissCount();
+    }
+
+
+    /*
+        Returns the number of journal entries. Used for the progress of an export.
+     */
+    long getEntryCount() {
+        return DatabaseUtils.queryNumEntries(getDatabase(), EntryTable.NAME);
+    }
+
+
+    /*
+        Returns the summaries of the entries that come after the given row id in row id order, at
+        most limit of them. Used by JournalExporter to walk through all of the entries a page at a
+        time, the row id keyset is not changed by edits so no entry is missed or read twice.
+     */
+    List<EntrySummary> getSummariesAfterRowId(long afterRowId, int limit) {
+        Cursor cursor = getDatabase().query(
+                EntryTable.NAME,
+                EntryCursorWrapper.SUMMARY_COLUMNS,
+                AFTER_ROW_ID,
+                new String[] { String.valueOf(afterRowId) },
+                null,
+                null,
+                EntryTable.COLS.ID,
+                String.valueOf(limit)
+        );
+
+        return readSummaries(new EntryCursorWrapper(cursor));
+    }
+
+
+    /*
+        Adds the given entries in a single transaction, skipping the entries whose id is already in
+        the database. Unlike addEntries() no change is published and nothing is cached for each
+        entry, the importer publishes a single reload once it is done. Used by JournalImporter.
+        @return The number of entries that were added.
+     */
+    int importEntries(Collection<Entry> entries) {
+        int added = 0;
+        getDatabase().beginTransaction();
+        try {
+            for (Entry entry : entries) {
+                if (findRowId(entry.getId()) < 0) {
+                    insert(entry);
+                    added++;
+                }
+            }
+            getDatabase().setTransactionSuccessful();
+        } finally {
+            getDatabase().endTransaction();
+        }
+
+        for (Entry entry : entries) {
+            entry.markClean();
+        }
+        return added;
+    }
+
+
+    /*
+        Adds the content of an entry to its cached summary, unless the entry was written or dropped
+        from the cache since writeCount was taken. Called by the readers of openContent() once
+        they have read the whole content.
+     */
+    void cacheContent(UUID id, String content, long writeCount) {
+        mCache.putContent(id, content, writeCount);
+    }
+
+
+    /*
+        Drops the entries kept in memory, called by SessionManager when the journal is locked.
+     */
+    void clearCache() {
+        mCache.clear();
+    }
+
+
+    /*
+        Tells the observers that all of the entries should be read again.
+     */
+    void publishReload() {
+        mChanges.publish(new EntryChange(EntryChange.RELOADED, null, ALL_FIELDS));
+    }
+
+
+    /*
+        Returns the database, which is opened by the first call. Only the database threads call
+        this, so the main thread never waits for the database to be opened.
+     */
+    private SQLiteDatabase getDatabase() {
+        SQLiteDatabase database = mDatabase;
+        if (database == null) {
+            database = DatabaseOpenHelper.getDatabase(mContext);
+            mDatabase = database;
+        }
+        return database;
+    }
+
+
+    /*
+        Returns the compiled statements of the database, see getDatabase().
+     */
+    private StatementCache getStatements() {
+        StatementCache statements = mStatements;
+        if (statements == null) {
+            statements = DatabaseOpenHelper.getStatements(mContext);
+            mStatements = statements;
+        }
+        return statements;
+    }
+
+
+    /*
+        Inserts the row of the given entry using the compiled insert statement.
+     */
+    private void insert(Entry entry) {
+        SQLiteStatement statement = getStatements().acquire(INSERT_SQL);
+
+        // insert data to the database
+        statement.bindLong(1, entry.getId().getMostSignificantBits());
+        statement.bindLong(2, entry.getId().getLeastSignificantBits());
+        StatementCache.bindStringOrNull(statement, 3, entry.getTitle());
+        statement.bindLong(4, entry.getDate().getTime());
+        entry.setRowId(statement.executeInsert());
+
+        writeContent(entry.getRowId(), entry.getContent());
+    }
+
+
+    /*
+        Writes the dirty fields of the given entry using the compiled update statement of those
+        fields. A changed content replaces all of the chunks of the entry. Must be called inside
+        a transaction. Returns false if the entry is no longer in the database, in which case
+        nothing is written.
+     */
+    private boolean update(Entry entry) {
+        int dirtyFields = entry.getDirtyFields();
+
+        // the entry might have been deleted meanwhile
+        long rowId = findRowId(entry.getId());
+        if (rowId < 0) {
+            return false;
+        }
+
+        // the update statement that sets the changed fields of the row
+        int rowFields = dirtyFields & ROW_FIELDS;
+        if (rowFields != 0) {
+            SQLiteStatement statement = getStatements().acquire(UPDATE_SQL[rowFields]);
+
+            // update the data on the database
+            int index = 1;
+            if ((rowFields & Entry.FIELD_TITLE) != 0) {
+                StatementCache.bindStringOrNull(statement, index++, entry.getTitle());
+            }
+            if ((rowFields & Entry.FIELD_DATE) != 0) {
+                statement.bindLong(index++, entry.getDate().getTime());
+            }
+            statement.bindLong(index, rowId);
+            statement.executeUpdateDelete();
+        }
+
+        if ((dirtyFields & Entry.FIELD_CONTENT) != 0) {
+            executeForRowId(DELETE_CHUNKS_SQL, rowId);
+            writeContent(rowId, entry.getContent());
+        }
+        return true;
+    }
+
+
+    /*
+        Deletes the row of the entry with the given id using the compiled delete statement.
+     */
+    private void delete(UUID id) {
+        SQLiteStatement statement = getStatements().acquire(DELETE_SQL);
+
+        // run the delete operation on the database
+        statement.bindLong(1, id.getMostSignificantBits());
+        statement.bindLong(2, id.getLeastSignificantBits());
+        statement.executeUpdateDelete();
+    }
+
+
+    /*
+        Returns the row id of the entry with the given id, or -1 if there is no such entry.
+     */
+    private long findRowId(UUID id) {
+        SQLiteStatement statement = getStatements().acquire(ROW_ID_SQL);
+        statement.bindLong(1, id.getMostSignificantBits());
+        statement.bindLong(2, id.getLeastSignificantBits());
         try {
-            // move the cursor to the first entry that matched, which is the only entry in this cursor
-            cursorWrapper.moveToFirst();
-            // return the Entry object
-            return cursorWrapper.getEntry();
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1;
+        }
+    }
+
+
+    /*
+        Splits the content into chunks of at most CHUNK_CHARS characters and writes them in order.
+        Each chunk is encrypted on its own. A chunk never ends between the two chars of a surrogate
+        pair. A null or empty content has no chunks. The entry must not have any chunks yet.
+     */
+    private void writeContent(long rowId, String content) {
+        if (content == null) {
+            return;
+        }
+
+        SQLiteStatement statement = getStatements().acquire(INSERT_CHUNK_SQL);
+        int seq = 0;
+        int start = 0;
+        while (start < content.length()) {
+            int end = Math.min(start + ContentChunkTable.CHUNK_CHARS, content.length());
+            if (end < content.length() && Character.isHighSurrogate(content.charAt(end - 1))) {
+                end--;
+            }
+
+            statement.bindLong(1, rowId);
+            statement.bindLong(2, seq);
+            statement.bindBlob(3, ContentCipher.encrypt(rowId, seq, content.substring(start, end)));
+            statement.executeInsert();
+            seq++;
+            start = end;
+        }
+    }
+
 
+    /*
+        Returns the decrypted chunk of the content of the entry with the given row id that has the
+        given seq, or null if the content has no such chunk. Used by EntryContentReader.
+     */
+    String readContentChunk(long rowId, int seq) {
+        Cursor cursor = getDatabase().rawQuery(CHUNK_QUERY,
+                new String[] { String.valueOf(rowId), String.valueOf(seq) });
+        try {
+            return cursor.moveToFirst() ? ContentCipher.decrypt(rowId, seq, cursor.getBlob(0)) : null;
         } finally {
-            cursorWrapper.close();
+            cursor.close();
         }
+    }
 
+
+    /*
+        Encrypts the chunks that were written in plain text before the contents were encrypted,
+        a batch at a time since the chunks are changed while they are read. Called by UserStash
+        once the content key is set, inside the transaction that stores the key.
+     */
+    void encryptPlainChunks() {
+        SQLiteStatement statement = getStatements().acquire(ENCRYPT_CHUNK_SQL);
+        while (true) {
+            Cursor cursor = getDatabase().rawQuery(PLAIN_CHUNKS_QUERY, null);
+            try {
+                if (!cursor.moveToFirst()) {
+                    return;
+                }
+
+                do {
+                    long rowId = cursor.getLong(0);
+                    int seq = cursor.getInt(1);
+                    statement.bindBlob(1, ContentCipher.encrypt(rowId, seq, cursor.getString(2)));
+                    statement.bindLong(2, rowId);
+                    statement.bindLong(3, seq);
+                    statement.executeUpdateDelete();
+                } while (cursor.moveToNext());
+            } finally {
+                cursor.close();
+            }
+        }
     }
 
 
     /*
-        Returns a content values object containing the data from the given Entry object. This is
-        used in database operations since the methods there requires a content value to pass in the
-        data that needs to be written to the tables.
+        Runs one of the compiled statements that take the row id of an entry as their only argument.
+     */
+    private void executeForRowId(String sql, long rowId) {
+        SQLiteStatement statement = getStatements().acquire(sql);
+        statement.bindLong(1, rowId);
+        statement.executeUpdateDelete();
+    }
+
 
-        @param entry The Entry object that contains journal data.
-        @return The created Content Value from the given Entry.
+    /*
+        Returns the full-text MATCH expression for the text typed by the user, or null if it has no
+        words. Only letters and digits are kept so the text can not use the query syntax of the
+        index, and the words are lower cased so that AND, OR and NOT are searched as plain words.
      */
-    private static ContentValues getContentValues(Entry entry) {
-        // create the content values
-        ContentValues values = new ContentValues();
+    private static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word);
+        }
 
-        // insert data to the content values
-        values.put(EntryTable.COLS.TITLE, entry.getTitle());
-        values.put(EntryTable.COLS.UUID, entry.getId().toString());
-        values.put(EntryTable.COLS.DATE, entry.getDate().getTime());
-        values.put(EntryTable.COLS.CONTENT, entry.getContent());
+        if (match.length() == 0) {
+            return null;
+        }
 
-        return values;
+        // match the last word as a prefix since the user might still be typing it
+        return match.append('*').toString();
     }
 
 
     /*
-        This method returns the cursor pointing to the selected database entry
+        Scores a search match from the 'pcx' matchinfo of the full-text index. Each matched term
+        adds the share of its hits that are in this entry, weighted by the column it is in, so rare
+        terms and title matches rank higher.
+     */
+    private static double scoreMatch(byte[] matchInfo) {
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = info.get(0);
+        int columns = info.get(1);
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int index = 2 + 3 * (phrase * columns + column);
+                int hitsInEntry = info.get(index);
+                int hitsInAllEntries = info.get(index + 1);
+                if (hitsInEntry > 0) {
+                    score += SEARCH_COLUMN_WEIGHTS[column] * hitsInEntry / hitsInAllEntries;
+                }
+            }
+        }
+        return score;
+    }
+
+
+    /*
+        Reads all of the entry summaries in the given cursor into a list and closes the cursor.
+     */
+    private static List<EntrySummary> readSummaries(EntryCursorWrapper cursor) {
+        List<EntrySummary> list = new ArrayList<>(cursor.getCount());
+
+        try {
+            cursor.moveToFirst();
+            while (!cursor.isAfterLast()) {
+                list.add(cursor.getEntrySummary());
+                cursor.moveToNext();
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return list;
+    }
+
+
+    /*
+        This method returns the cursor over the summary columns of the selected entries in PAGE_ORDER
         @param whereClause Tells which row of the Table will be returned
         @param whereArgs Argument string for the whereClause
+        @param limit The LIMIT clause, null for no limit
         @return The cursor containing the selected rows.
      */
-    private EntryCursorWrapper queryEntries(String whereClause, String[] whereArgs) {
-        Cursor cursor = mDatabase.query(
+    private EntryCursorWrapper querySummaries(String whereClause, String[] whereArgs, String limit) {
+        Cursor cursor = getDatabase().query(
                 EntryTable.NAME,
-                null,
+                EntryCursorWrapper.SUMMARY_COLUMNS,
                 whereClause,
                 whereArgs,
                 null,
                 null,
-                null
+                PAGE_ORDER,
+                limit
         );
 
         return new EntryCursorWrapper(cursor);
     }
+
+
+    /*
+        The docid and score of a search match, used for picking the best matches.
+     */
+    private static class ScoredDoc {
+        private final long docId;
+        private final double score;
+
+        ScoredDoc(long docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Class for representing the part of a Journal Entry that is shown in the list of entries. Unlike
+ * Entry it does not hold the content of the entry, so reading it from the database is cheap even
+ * for very long entries.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import java.util.Date;
+import java.util.UUID;
+
+public class EntrySummary {
+    /**
+     * The database row id of the entry.
+     */
+    private final long mRowId;
+
+    /**
+     * The unique id of the entry.
+     */
+    private final UUID mId;
+
+    /**
+     * The title of the entry.
+     */
+    private final String mTitle;
+
+    /**
+     * The date of the entry.
+     */
+    private final Date mDate;
+
+
+
+
+    /**
+     * Creates a summary of a journal entry.
+     * @param rowId The database row id of the entry.
+     * @param id The unique id of the entry.
+     * @param title The title of the entry.
+     * @param date The date of the entry.
+     */
+    public EntrySummary(long rowId, UUID id, String title, Date date) {
+        this.mRowId = rowId;
+        this.mId = id;
+        this.mTitle = title;
+        this.mDate = date;
+    }
+
+
+
+
+    /**
+     * Returns the database row id of the entry.
+     * @return the row id of the entry.
+     */
+    public long getRowId() {
+        return mRowId;
+    }
+
+
+    /**
+     * Returns the id of the entry.
+     * @return UUID of the entry.
+     */
+    public UUID getId() {
+        return mId;
+    }
+
+
+    /**
+     * Returns the title of the entry.
+     * @return String containing the title of the entry.
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+
+    /**
+     * Returns the date of the entry.
+     * @return Date object containing the date of the entry.
+     */
+    public Date getDate() {
+        return mDate;
+    }
+}
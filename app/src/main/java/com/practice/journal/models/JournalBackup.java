@@ -0,0 +1,64 @@
+/**
+ * Class that defines the backup file written by JournalExporter and read by JournalImporter. A
+ * backup is a gzip compressed file of JSON lines: the first line is a header object, every other
+ * line is one entry object. The content of an entry is written as an array of its chunks, so
+ * neither side ever holds more than a chunk of a content in memory while writing it.
+ * <pre>
+ * {"format":"journal-backup","version":1,"entries":2}
+ * {"id":"...","title":"First","date":1617451200000,"content":["chunk 1","chunk 2"]}
+ * {"id":"...","title":"Second","date":1617537600000,"content":[]}
+ * </pre>
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+public final class JournalBackup {
+
+    /**
+     * Interface for receiving the progress of an export or an import. It is called on the
+     * database thread that runs the export or the import.
+     */
+    public interface OnProgressListener {
+        /**
+         * Called after each batch of entries.
+         * @param done The number of entries written, or of bytes read for an import.
+         * @param total The number of entries, or of bytes of the file for an import, -1 if unknown.
+         */
+        void onProgress(long done, long total);
+    }
+
+
+    /**
+     * The MIME type of a backup file.
+     */
+    public static final String MIME_TYPE = "application/gzip";
+
+    /**
+     * The suggested name of a backup file.
+     */
+    public static final String FILE_NAME = "journal-backup.jsonl.gz";
+
+    // the value of the format field of the header
+    static final String FORMAT = "journal-backup";
+
+    // the version of the format written by JournalExporter, JournalImporter reads up to this version
+    static final int VERSION = 1;
+
+    // the fields of the header
+    static final String HEADER_FORMAT = "format";
+    static final String HEADER_VERSION = "version";
+    static final String HEADER_ENTRIES = "entries";
+
+    // the fields of an entry
+    static final String ENTRY_ID = "id";
+    static final String ENTRY_TITLE = "title";
+    static final String ENTRY_DATE = "date";
+    static final String ENTRY_CONTENT = "content";
+
+    // the size of the buffers between the JSON, the text encoding, the compression and the channel
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // private constructor to avoid instantiation of this class
+    private JournalBackup() {}
+}
@@ -0,0 +1,113 @@
+/**
+ * Class that writes all of the journal entries to a backup file, see JournalBackup. The entries are
+ * read a page at a time and their contents a chunk at a time, and each entry is written out as
+ * soon as it is read, so the memory used does not grow with the number or the size of the entries.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import android.util.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class JournalExporter {
+    // the number of entries read from the database at a time
+    private static final int PAGE_SIZE = 200;
+
+    private final EntryStash mEntryStash;
+
+    /**
+     * Creates an exporter.
+     * @param stash The stash that the entries are read from.
+     */
+    public JournalExporter(EntryStash stash) {
+        mEntryStash = stash;
+    }
+
+
+    /**
+     * Writes all of the journal entries to the given channel and closes it. This only reads the
+     * database, so it should be run with DatabaseExecutor.submitQuery(). Entries that are changed
+     * while the export runs are written either as they were or as they are.
+     * @param channel The channel of the backup file.
+     * @param listener Receives the number of entries written after each page, may be null.
+     * @return The number of entries written.
+     * @throws IOException if the file can not be written.
+     */
+    public int export(WritableByteChannel channel, JournalBackup.OnProgressListener listener) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Channels.newOutputStream(channel), JournalBackup.BUFFER_SIZE),
+                Charset.forName("UTF-8")), JournalBackup.BUFFER_SIZE);
+
+        try {
+            long total = mEntryStash.getEntryCount();
+
+            // the header
+            JsonWriter json = new JsonWriter(writer);
+            json.beginObject();
+            json.name(JournalBackup.HEADER_FORMAT).value(JournalBackup.FORMAT);
+            json.name(JournalBackup.HEADER_VERSION).value(JournalBackup.VERSION);
+            json.name(JournalBackup.HEADER_ENTRIES).value(total);
+            json.endObject();
+            writer.write('\n');
+
+            // the entries, a page at a time in row id order
+            int written = 0;
+            long afterRowId = 0;
+            List<EntrySummary> page;
+            while (!(page = mEntryStash.getSummariesAfterRowId(afterRowId, PAGE_SIZE)).isEmpty()) {
+                for (EntrySummary summary : page) {
+                    writeEntry(writer, summary);
+                    written++;
+                }
+                afterRowId = page.get(page.size() - 1).getRowId();
+
+                if (listener != null) {
+                    listener.onProgress(written, Math.max(total, written));
+                }
+            }
+
+            return written;
+        } finally {
+            // also finishes the compressed stream and closes the channel
+            writer.close();
+        }
+    }
+
+
+    /*
+        Writes one entry as a line of JSON, its content one chunk at a time.
+     */
+    private void writeEntry(Writer writer, EntrySummary summary) throws IOException {
+        // JsonWriter has no buffer of its own, a new one for each line writes straight to the writer
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name(JournalBackup.ENTRY_ID).value(summary.getId().toString());
+        json.name(JournalBackup.ENTRY_TITLE).value(summary.getTitle());
+        json.name(JournalBackup.ENTRY_DATE).value(summary.getDate().getTime());
+
+        json.name(JournalBackup.ENTRY_CONTENT).beginArray();
+        EntryContentReader reader = new EntryContentReader(mEntryStash, summary.getRowId());
+        try {
+            String chunk;
+            while ((chunk = reader.readChunk()) != null) {
+                json.value(chunk);
+            }
+        } finally {
+            reader.close();
+        }
+        json.endArray();
+
+        json.endObject();
+        writer.write('\n');
+    }
+}
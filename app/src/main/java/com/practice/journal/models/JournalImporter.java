@@ -0,0 +1,255 @@
+/**
+ * Class that adds the entries of a backup file, see JournalBackup, to the journal. The file is
+ * parsed one entry at a time and the entries are added in batches of one transaction each, so the
+ * memory used does not grow with the size of the file. Entries whose id is already in the journal
+ * are skipped, so importing the same file twice adds its entries once.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+public class JournalImporter {
+    // the maximum number of entries added in one transaction
+    private static final int BATCH_ENTRIES = 200;
+
+    // the number of content characters after which a batch is added even if it is not full
+    private static final int BATCH_CHARS = 1024 * 1024;
+
+    private final EntryStash mEntryStash;
+
+    /**
+     * Creates an importer.
+     * @param stash The stash that the entries are added to.
+     */
+    public JournalImporter(EntryStash stash) {
+        mEntryStash = stash;
+    }
+
+
+    /**
+     * Adds the entries of the backup file in the given channel to the journal and closes the
+     * channel. This writes to the database, so it must be run with DatabaseExecutor.submit(). If
+     * the file turns out to be damaged the batches added before the damaged entry are kept.
+     * @param channel The channel of the backup file.
+     * @param size The size of the file in bytes, used for the progress, -1 if unknown.
+     * @param listener Receives the number of bytes read after each batch, may be null.
+     * @return The number of entries added.
+     * @throws IOException if the file can not be read or is not a backup file.
+     */
+    public int importFrom(ReadableByteChannel channel, long size, JournalBackup.OnProgressListener listener)
+            throws IOException {
+        CountingInputStream counter = new CountingInputStream(Channels.newInputStream(channel));
+        JsonReader json = new JsonReader(new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(counter, JournalBackup.BUFFER_SIZE),
+                Charset.forName("UTF-8")), JournalBackup.BUFFER_SIZE));
+
+        // the file has one JSON value per line
+        json.setLenient(true);
+
+        int added = 0;
+        try {
+            readHeader(json);
+
+            List<Entry> batch = new ArrayList<>(BATCH_ENTRIES);
+            long batchChars = 0;
+            while (json.peek() != JsonToken.END_DOCUMENT) {
+                Entry entry = readEntry(json);
+                batch.add(entry);
+                if (entry.getContent() != null) {
+                    batchChars += entry.getContent().length();
+                }
+
+                if (batch.size() >= BATCH_ENTRIES || batchChars >= BATCH_CHARS) {
+                    added += mEntryStash.importEntries(batch);
+                    batch.clear();
+                    batchChars = 0;
+
+                    if (listener != null) {
+                        listener.onProgress(counter.getCount(), size);
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                added += mEntryStash.importEntries(batch);
+            }
+            if (listener != null) {
+                listener.onProgress(counter.getCount(), size);
+            }
+
+            return added;
+        } catch (IllegalStateException | NumberFormatException e) {
+            // thrown by JsonReader for values of the wrong type
+            throw new IOException("Damaged backup file", e);
+        } finally {
+            json.close();
+
+            // the entries that were added are shown even if the rest of the file failed
+            if (added > 0) {
+                mEntryStash.publishReload();
+            }
+        }
+    }
+
+
+    /*
+        Reads the header line and checks that the file is a backup of a version that can be read.
+     */
+    private static void readHeader(JsonReader json) throws IOException {
+        String format = null;
+        int version = 0;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (JournalBackup.HEADER_FORMAT.equals(name)) {
+                format = json.nextString();
+            } else if (JournalBackup.HEADER_VERSION.equals(name)) {
+                version = json.nextInt();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (!JournalBackup.FORMAT.equals(format) || version < 1 || version > JournalBackup.VERSION) {
+            throw new IOException("Not a journal backup of a supported version");
+        }
+    }
+
+
+    /*
+        Reads one entry line. Unknown fields are skipped so that newer files can add fields.
+     */
+    private static Entry readEntry(JsonReader json) throws IOException {
+        UUID id = null;
+        String title = null;
+        long date = 0;
+        String content = null;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+            } else if (JournalBackup.ENTRY_ID.equals(name)) {
+                id = parseId(json.nextString());
+            } else if (JournalBackup.ENTRY_TITLE.equals(name)) {
+                title = json.nextString();
+            } else if (JournalBackup.ENTRY_DATE.equals(name)) {
+                date = json.nextLong();
+            } else if (JournalBackup.ENTRY_CONTENT.equals(name)) {
+                content = readContent(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (id == null) {
+            throw new IOException("Backup entry without an id");
+        }
+
+        Entry entry = new Entry(id);
+        entry.setTitle(title);
+        entry.setDate(new Date(date));
+        entry.setContent(content);
+        return entry;
+    }
+
+
+    /*
+        Joins the chunks of a content array, or returns null for an empty array.
+     */
+    private static String readContent(JsonReader json) throws IOException {
+        json.beginArray();
+        if (!json.hasNext()) {
+            json.endArray();
+            return null;
+        }
+
+        // most contents are a single chunk
+        String first = json.nextString();
+        if (!json.hasNext()) {
+            json.endArray();
+            return first;
+        }
+
+        StringBuilder content = new StringBuilder(first);
+        while (json.hasNext()) {
+            content.append(json.nextString());
+        }
+        json.endArray();
+        return content.toString();
+    }
+
+
+    /*
+        Parses the id of an entry, an invalid id makes the file damaged.
+     */
+    private static UUID parseId(String value) throws IOException {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Backup entry with an invalid id " + value, e);
+        }
+    }
+
+
+    /*
+        Input stream that counts the bytes read through it, used for the progress of the import.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long mCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = super.skip(count);
+            mCount += skipped;
+            return skipped;
+        }
+    }
+}
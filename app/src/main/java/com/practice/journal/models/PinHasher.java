@@ -0,0 +1,162 @@
+/**
+ * Class that hashes the pin of a user with PBKDF2 and a random salt, so the pin itself is never
+ * stored. The number of rounds is the cost of checking a pin: it is calibrated on the device so
+ * that one hash takes about the target time, but it is never below the minimum rounds. A stored
+ * hash with fewer rounds than the minimum is hashed again at the next login. Hashing is slow on
+ * purpose, so it must not be done on the main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import android.os.SystemClock;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+public final class PinHasher {
+    /**
+     * The cost used unless another one is given to UserStash.setPinHasher().
+     */
+    public static final PinHasher DEFAULT = new PinHasher(250, 10000);
+
+    // PBKDF2 with SHA-256 is only available from API 26
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+
+    // the rounds timed by the calibration, enough to measure but quick on any device
+    private static final int CALIBRATION_ROUNDS = 2000;
+
+    // the rounds are not raised past this however fast the device is
+    private static final int MAX_ROUNDS = 1000000;
+
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+
+    private static final SecureRandom sRandom = new SecureRandom();
+
+    private final long mTargetMillis;
+    private final int mMinRounds;
+
+    // the calibrated rounds, 0 until the first getRounds()
+    private int mRounds;
+
+
+    /**
+     * Creates the hashing cost.
+     * @param targetMillis The time in milliseconds that hashing a pin should take on the device.
+     * @param minRounds The least number of rounds that a pin is hashed with.
+     */
+    public PinHasher(long targetMillis, int minRounds) {
+        if (targetMillis < 1) {
+            throw new IllegalArgumentException("Invalid target time " + targetMillis);
+        }
+        if (minRounds < 1 || minRounds > MAX_ROUNDS) {
+            throw new IllegalArgumentException("Invalid minimum rounds " + minRounds);
+        }
+
+        mTargetMillis = targetMillis;
+        mMinRounds = minRounds;
+    }
+
+
+    /**
+     * Returns the time that hashing a pin should take.
+     * @return the target time in milliseconds.
+     */
+    public long getTargetMillis() {
+        return mTargetMillis;
+    }
+
+
+    /**
+     * Returns the least number of rounds that a pin is hashed with.
+     * @return the minimum rounds.
+     */
+    public int getMinRounds() {
+        return mMinRounds;
+    }
+
+
+    /**
+     * Returns the number of rounds that new hashes are made with. The first call times a few
+     * rounds on this device and scales them to the target time.
+     * @return the calibrated rounds, at least the minimum rounds.
+     */
+    public synchronized int getRounds() {
+        if (mRounds == 0) {
+            mRounds = calibrate();
+        }
+        return mRounds;
+    }
+
+
+    /*
+        Returns whether a hash made with the given rounds is too cheap and should be made again.
+     */
+    boolean needsRehash(int rounds) {
+        return rounds < mMinRounds;
+    }
+
+
+    /*
+        Returns a new random salt.
+     */
+    static byte[] newSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        sRandom.nextBytes(salt);
+        return salt;
+    }
+
+
+    /*
+        Returns the hash of the pin with the given salt and rounds.
+     */
+    static byte[] hash(String pin, byte[] salt, int rounds) {
+        return derive(pin, salt, rounds, HASH_BYTES);
+    }
+
+
+    /*
+        Returns whether the pin has the given hash. The hashes are compared in constant time.
+     */
+    static boolean verify(String pin, byte[] salt, int rounds, byte[] hash) {
+        return MessageDigest.isEqual(derive(pin, salt, rounds, hash.length), hash);
+    }
+
+
+    /*
+        Derives the given number of bytes from the pin with PBKDF2. Also used by ContentCipher for
+        the key that wraps the content key.
+     */
+    static byte[] derive(String pin, byte[] salt, int rounds, int bytes) {
+        PBEKeySpec spec = new PBEKeySpec(pin.toCharArray(), salt, rounds, bytes * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+
+    /*
+        Times CALIBRATION_ROUNDS on this device and returns the rounds that take about the target
+        time. The first run is not timed since it also loads the provider.
+     */
+    private int calibrate() {
+        byte[] salt = newSalt();
+        derive("0000", salt, CALIBRATION_ROUNDS, HASH_BYTES);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        derive("0000", salt, CALIBRATION_ROUNDS, HASH_BYTES);
+        long nanos = Math.max(1, SystemClock.elapsedRealtimeNanos() - start);
+
+        long rounds = CALIBRATION_ROUNDS * mTargetMillis * 1000000 / nanos;
+        return (int) Math.max(mMinRounds, Math.min(MAX_ROUNDS, rounds));
+    }
+}
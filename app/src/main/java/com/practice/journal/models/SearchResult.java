@@ -0,0 +1,78 @@
+/**
+ * Class for representing an Entry that matched a search of the journal.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+public class SearchResult {
+    /**
+     * Marks the start of a matched term in the snippet.
+     */
+    public static final String MATCH_START = "\u0002";
+
+    /**
+     * Marks the end of a matched term in the snippet.
+     */
+    public static final String MATCH_END = "\u0003";
+
+    /**
+     * The summary of the matching entry.
+     */
+    private final EntrySummary mSummary;
+
+    /**
+     * The title of the entry, with each matched term between MATCH_START and MATCH_END.
+     */
+    private final String mSnippet;
+
+    /**
+     * How well the entry matched the search, higher is better.
+     */
+    private final double mScore;
+
+
+
+
+    /**
+     * Creates a search result.
+     * @param summary The summary of the matching entry.
+     * @param snippet The title with the matched terms marked.
+     * @param score How well the entry matched the search.
+     */
+    public SearchResult(EntrySummary summary, String snippet, double score) {
+        this.mSummary = summary;
+        this.mSnippet = snippet;
+        this.mScore = score;
+    }
+
+
+
+
+    /**
+     * Returns the summary of the matching entry.
+     * @return the EntrySummary of the entry.
+     */
+    public EntrySummary getSummary() {
+        return mSummary;
+    }
+
+
+    /**
+     * Returns the title of the entry, only the titles are searched. Each matched term is placed
+     * between MATCH_START and MATCH_END so that it can be highlighted.
+     * @return the snippet of the entry.
+     */
+    public String getSnippet() {
+        return mSnippet;
+    }
+
+
+    /**
+     * Returns how well the entry matched the search.
+     * @return the score of the entry, higher is better.
+     */
+    public double getScore() {
+        return mScore;
+    }
+}
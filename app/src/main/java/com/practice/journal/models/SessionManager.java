@@ -0,0 +1,214 @@
+/**
+ * Class that keeps the state of the login in memory for the running app: whether the user is
+ * registered and whether the journal is unlocked. The registration is read from the database only
+ * once and then remembered. The journal stays unlocked while the app is in use and for an idle
+ * timeout after the last screen of the app is left, so coming back to the app within the timeout
+ * does not ask for the pin again. Once the timeout passes, the content key and the cached entries
+ * are dropped. The screens report when they are started and stopped, see SingleFragmentActivity.
+ * Unless stated otherwise the methods must be called on the main thread.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.models;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import com.practice.journal.db.DatabaseExecutor;
+
+import java.util.concurrent.Callable;
+
+public final class SessionManager {
+    /**
+     * The idle timeout used unless another one is given to setIdleTimeout().
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    // the only user of the app for now, see UserStash
+    private static final String USER_NAME = "user";
+
+    // the singleton instance of this class
+    private static SessionManager sSessionManager;
+
+    private final Context mContext;
+
+    // locks the journal once the app has been idle for the timeout
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mIdleCheck = new Runnable() {
+        @Override
+        public void run() {
+            checkIdle();
+        }
+    };
+
+    private long mIdleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+    // whether the user is registered, null until it is first read. Set on the database threads
+    private volatile Boolean mRegistered;
+
+    // the number of screens of the app that are started, the app is idle while there are none
+    private int mStartedCount;
+
+    // the time in elapsedRealtime() since the app is idle
+    private long mIdleSince;
+
+
+    // private constructor to avoid instantiating objects from this class
+    private SessionManager(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+
+    /**
+     * Returns the only instance of this class.
+     * @param context The application context.
+     * @return the instance of this SessionManager.
+     */
+    public static synchronized SessionManager get(Context context) {
+        if (sSessionManager == null) {
+            sSessionManager = new SessionManager(context);
+        }
+        return sSessionManager;
+    }
+
+
+    /**
+     * Sets how long the journal stays unlocked after the last screen of the app is left.
+     * @param millis The idle timeout in milliseconds.
+     */
+    public void setIdleTimeout(long millis) {
+        mIdleTimeoutMillis = millis;
+    }
+
+
+    /**
+     * Tells the callback whether the user is registered. The first call reads it on a database
+     * thread, later calls answer right away without a query.
+     * @param owner The lifecycle that the callback is bound to.
+     * @param callback Receives true if the user is registered.
+     * @return The task reading the registration, or null if the answer was known.
+     */
+    public DatabaseExecutor.Task loadRegistered(LifecycleOwner owner, DatabaseExecutor.Callback<Boolean> callback) {
+        Boolean registered = mRegistered;
+        if (registered != null) {
+            callback.onResult(registered);
+            return null;
+        }
+
+        final UserStash stash = UserStash.get(mContext);
+        return DatabaseExecutor.submitQuery(owner, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                boolean registered = stash.hasUser(USER_NAME);
+                mRegistered = registered;
+                return registered;
+            }
+        }, callback);
+    }
+
+
+    /**
+     * Remembers that the user was just registered. Can be called on any thread.
+     */
+    public void onRegistered() {
+        mRegistered = true;
+    }
+
+
+    /**
+     * Checks the pin and unlocks the journal, see UserStash.unlockSingleUser(). Must be called on
+     * the database thread that does the writes.
+     * @param pin The pin typed by the user.
+     * @return true if the pin was correct and the journal is unlocked.
+     */
+    public boolean unlock(String pin) {
+        if (!UserStash.get(mContext).unlockSingleUser(pin)) {
+            return false;
+        }
+        mRegistered = true;
+        return true;
+    }
+
+
+    /**
+     * Returns whether the journal is unlocked. A journal that has been idle for longer than the
+     * timeout is locked by this call, in case the timer has not fired yet.
+     * @return true if the journal is unlocked.
+     */
+    public boolean isAuthenticated() {
+        if (!ContentCipher.isUnlocked()) {
+            return false;
+        }
+        if (mStartedCount == 0 && SystemClock.elapsedRealtime() - mIdleSince >= mIdleTimeoutMillis) {
+            lock();
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Called when a screen of the app is started, which stops the idle timeout.
+     */
+    public void onActivityStarted() {
+        mStartedCount++;
+        mHandler.removeCallbacks(mIdleCheck);
+    }
+
+
+    /**
+     * Called when a screen of the app is stopped. Once no screen is started the idle timeout
+     * begins.
+     */
+    public void onActivityStopped() {
+        mStartedCount--;
+        if (mStartedCount == 0) {
+            mIdleSince = SystemClock.elapsedRealtime();
+            mHandler.postDelayed(mIdleCheck, mIdleTimeoutMillis);
+        }
+    }
+
+
+    /**
+     * Restarts the idle timeout while the app is in the background, used by work that keeps
+     * running there and needs the journal unlocked, such as an export.
+     */
+    public void touch() {
+        if (mStartedCount == 0) {
+            mIdleSince = SystemClock.elapsedRealtime();
+        }
+    }
+
+
+    /**
+     * Locks the journal: the content key and the cached entries are dropped from memory, and the
+     * pin has to be given again before any content is read. Can be called on any thread.
+     */
+    public void lock() {
+        mHandler.removeCallbacks(mIdleCheck);
+        ContentCipher.setKey(null);
+        EntryStash.get(mContext).clearCache();
+    }
+
+
+    /*
+        Locks the journal if the app has been idle for the timeout, or checks again when the rest
+        of it has passed.
+     */
+    private void checkIdle() {
+        if (mStartedCount > 0 || !ContentCipher.isUnlocked()) {
+            return;
+        }
+
+        long remaining = mIdleTimeoutMillis - (SystemClock.elapsedRealtime() - mIdleSince);
+        if (remaining <= 0) {
+            lock();
+        } else {
+            mHandler.postDelayed(mIdleCheck, remaining);
+        }
+    }
+}
@@ -9,27 +9,77 @@
 
 package com.practice.journal.models;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.practice.journal.db.DatabaseOpenHelper;
-import com.practice.journal.db.DatabaseSchema;
-import com.practice.journal.db.UserCursorWrapper;
+import com.practice.journal.db.StatementCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.crypto.SecretKey;
 
 import static com.practice.journal.db.DatabaseSchema.*;
 
 public class UserStash {
+    // counts the users with a given username
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + UserTable.NAME
+            + " WHERE " + UserTable.COLS.NAME + " = ?";
+
+    // reads the hash of the pin of a given username, and the pin if it is not hashed yet
+    private static final String PIN_QUERY = "SELECT " + UserTable.COLS.PIN_SALT + ", "
+            + UserTable.COLS.PIN_ROUNDS + ", " + UserTable.COLS.PIN_HASH + ", " + UserTable.COLS.PIN
+            + " FROM " + UserTable.NAME + " WHERE " + UserTable.COLS.NAME + " = ?";
+
+    // inserts a user, the arguments are the username and the salt, rounds and hash of the pin
+    private static final String INSERT_SQL = "INSERT INTO " + UserTable.NAME + " ("
+            + UserTable.COLS.NAME + ", " + UserTable.COLS.PIN_SALT + ", " + UserTable.COLS.PIN_ROUNDS
+            + ", " + UserTable.COLS.PIN_HASH + ") VALUES (?, ?, ?, ?)";
+
+    // replaces the pin of a user with a new hash, the arguments are the salt, rounds and hash of
+    // the pin and the username
+    private static final String UPDATE_PIN_SQL = "UPDATE " + UserTable.NAME + " SET "
+            + UserTable.COLS.PIN + " = NULL, " + UserTable.COLS.PIN_SALT + " = ?, "
+            + UserTable.COLS.PIN_ROUNDS + " = ?, " + UserTable.COLS.PIN_HASH + " = ? WHERE "
+            + UserTable.COLS.NAME + " = ?";
+
+    // reads the wrapped content key of a given username
+    private static final String KEY_QUERY = "SELECT " + UserTable.COLS.KEY_SALT + ", "
+            + UserTable.COLS.KEY_ROUNDS + ", " + UserTable.COLS.WRAPPED_KEY + " FROM " + UserTable.NAME
+            + " WHERE " + UserTable.COLS.NAME + " = ?";
+
+    // stores the wrapped content key of a user, the arguments are the salt, the rounds, the
+    // wrapped key and the username
+    private static final String UPDATE_KEY_SQL = "UPDATE " + UserTable.NAME + " SET "
+            + UserTable.COLS.KEY_SALT + " = ?, " + UserTable.COLS.KEY_ROUNDS + " = ?, "
+            + UserTable.COLS.WRAPPED_KEY + " = ? WHERE " + UserTable.COLS.NAME + " = ?";
+
+    // deletes a user, the argument is the username
+    private static final String DELETE_SQL = "DELETE FROM " + UserTable.NAME
+            + " WHERE " + UserTable.COLS.NAME + " = ?";
+
     // Singleton instance of this class
     private static UserStash sUserStash;
 
-    // the instance of the application database
-    private SQLiteDatabase mDatabase;
+    // the cost of hashing the pins
+    private static PinHasher sPinHasher = PinHasher.DEFAULT;
+
+    // used for opening the database and for reaching the EntryStash when the contents are first encrypted
+    private final Context mContext;
+
+    // the database that stores the users, null until it is first used
+    private volatile SQLiteDatabase mDatabase;
+
+    // the compiled statements of the user table, null until they are first used
+    private volatile StatementCache mStatements;
 
     // private constructor ensure only one instance of this class is available to the app
     private UserStash(Context context) {
-        mDatabase = DatabaseOpenHelper.getDatabase(context);
+        // the database is opened by the first database thread that needs it, see getDatabase()
+        mContext = context.getApplicationContext();
     }
 
 
@@ -45,153 +95,260 @@ public class UserStash {
     }
 
 
+    /**
+     * Sets the cost of hashing the pins. The pins hashed with fewer rounds than its minimum are
+     * hashed again when their users log in.
+     * @param pinHasher The hashing cost.
+     */
+    public static synchronized void setPinHasher(PinHasher pinHasher) {
+        sPinHasher = pinHasher;
+    }
+
+
     /**
      * Returns a boolean value whether the given username is registered in the app's database.
      * @return true or false is the given username is in the app.
      */
     public boolean hasUser(String name) {
-        // query the database
-        Cursor cursor = mDatabase.query(
-                UserTable.NAME,
-                null,
-                UserTable.COLS.NAME + "= ?",
-                new String[] {name},
-                null,
-                null,
-                null
-        );
-
-        // wrap the cursor
-        UserCursorWrapper userCursor = new UserCursorWrapper(cursor);
-
-        // check if the cursor returned results
-        if (userCursor.getCount() == 0) {
-            return false;
-        }
+        SQLiteStatement statement = getStatements().acquire(COUNT_SQL);
 
-        return true;
+        // count the users with the given name
+        StatementCache.bindStringOrNull(statement, 1, name);
+        return statement.simpleQueryForLong() > 0;
     }
 
 
     /**
-     * Queries the database to check if the given pin exists for a given username.
+     * Queries the database to check if the given pin exists for a given username. The pin is
+     * checked against its salted hash, which is slow on purpose, so this must be called on a
+     * database thread. A pin that is not hashed yet, or hashed with too few rounds, is hashed
+     * again with the current cost once it is known to be correct.
      * @param name  the username of the User
      * @param pin the pin of the User
      * @return  true or false
      */
     public boolean authenticate(String name, String pin) {
-        // get the pin of the stated user name
-        String userPin = getPin(name);
+        byte[] salt;
+        int rounds;
+        byte[] hash;
+        String plainPin;
+        Cursor cursor = getDatabase().rawQuery(PIN_QUERY, new String[] { name });
+        try {
+            if (!cursor.moveToFirst()) {
+                return false;
+            }
+            salt = cursor.getBlob(0);
+            rounds = cursor.getInt(1);
+            hash = cursor.getBlob(2);
+            plainPin = cursor.getString(3);
+        } finally {
+            cursor.close();
+        }
 
-        // check for equality
-        if (pin.equals(userPin)) {
-            return true;
+        if (hash == null) {
+            // a pin stored before the pins were hashed
+            if (plainPin == null || !MessageDigest.isEqual(
+                    plainPin.getBytes(StandardCharsets.UTF_8), pin.getBytes(StandardCharsets.UTF_8))) {
+                return false;
+            }
+        } else if (!PinHasher.verify(pin, salt, rounds, hash)) {
+            return false;
+        }
+
+        if (hash == null || getPinHasher().needsRehash(rounds)) {
+            writePin(name, pin);
         }
-        return false;
+        return true;
     }
 
 
     /**
      * Queries the database to check if the given password is correct.
      * This method will be used until the multi-user implementation is not yet written.
+     * Like authenticate() it must be called on a database thread.
      * @param pin the pin to unlock the app.
      * @return boolean value to check if the pin was correct.
      */
     public boolean authenticateSingleUser(String pin) {
-        // get the pin of the stated user name
-        String userPin = getPin("user");
+        return authenticate("user", pin);
+    }
+
+
+    /**
+     * Checks the pin like authenticateSingleUser() and, if it is correct, unlocks the content of
+     * the entries for the rest of the session. The content key is unwrapped with a key derived
+     * from the pin. At the first unlock the content key is created and the contents that are still
+     * in plain text are encrypted with it. This is slow on purpose and may write, so it must be
+     * called on the database thread that does the writes.
+     * @param pin the pin to unlock the app.
+     * @return true if the pin was correct and the journal is unlocked.
+     */
+    public boolean unlockSingleUser(String pin) {
+        if (!authenticateSingleUser(pin)) {
+            return false;
+        }
+
+        byte[] salt = null;
+        int rounds = 0;
+        byte[] wrapped = null;
+        Cursor cursor = getDatabase().rawQuery(KEY_QUERY, new String[] { "user" });
+        try {
+            if (cursor.moveToFirst() && !cursor.isNull(2)) {
+                salt = cursor.getBlob(0);
+                rounds = cursor.getInt(1);
+                wrapped = cursor.getBlob(2);
+            }
+        } finally {
+            cursor.close();
+        }
 
-        // check for equality
-        if (pin.equals(userPin)) {
+        // the first unlock, the key is only stored once every content is encrypted with it
+        if (wrapped == null) {
+            SecretKey key = ContentCipher.newContentKey();
+            getDatabase().beginTransaction();
+            try {
+                ContentCipher.setKey(key);
+                storeKey("user", pin, key);
+                EntryStash.get(mContext).encryptPlainChunks();
+                getDatabase().setTransactionSuccessful();
+            } catch (RuntimeException e) {
+                ContentCipher.setKey(null);
+                throw e;
+            } finally {
+                getDatabase().endTransaction();
+            }
+
+            // the log still holds the pages with the plain text that was just encrypted
+            DatabaseOpenHelper.checkpoint(getDatabase());
             return true;
         }
-        return false;
+
+        SecretKey key = ContentCipher.unwrapKey(ContentCipher.deriveKey(pin, salt, rounds), wrapped);
+        if (key == null) {
+            // the pin matched, so the stored key was damaged
+            throw new IllegalStateException("The content key of the user can not be unwrapped");
+        }
+        ContentCipher.setKey(key);
+        return true;
     }
 
 
     /**
-     * Adds the given user to the application database.
+     * Adds the given user to the application database. Only the salted hash of the pin is stored,
+     * which is slow to make on purpose, so this must be called on a database thread.
      * @param user The User object to be added.
      */
     public void createUser(User user) {
-        ContentValues userValues = getContentValues(user);
-        mDatabase.insert(UserTable.NAME, null, userValues);
+        byte[] salt = PinHasher.newSalt();
+        int rounds = getPinHasher().getRounds();
+        byte[] hash = PinHasher.hash(user.getPin(), salt, rounds);
+
+        SQLiteStatement statement = getStatements().acquire(INSERT_SQL);
+        StatementCache.bindStringOrNull(statement, 1, user.getName());
+        statement.bindBlob(2, salt);
+        statement.bindLong(3, rounds);
+        statement.bindBlob(4, hash);
+        statement.executeInsert();
     }
 
 
     /**
-     * Updates the user with a new pin.
+     * Updates the user with a new pin. The content key is wrapped again with the new pin, so the
+     * journal must be unlocked.
      * @param user The User object containing the new data.
+     * @throws IllegalStateException if the journal is locked.
      */
     public void updatePin(User user) {
-        // the username of the user to be updated
-        String username = user.getName();
-
-        // wrap the user to a content value object
-        ContentValues values = getContentValues(user);
-
-        // database update query
-        mDatabase.update(
-                UserTable.NAME,
-                values,
-                UserTable.COLS.NAME + "= ?",
-                new String[] { username });
+        SecretKey key = ContentCipher.requireKey();
+
+        // the pin and the key it wraps are changed together
+        getDatabase().beginTransaction();
+        try {
+            writePin(user.getName(), user.getPin());
+            storeKey(user.getName(), user.getPin(), key);
+            getDatabase().setTransactionSuccessful();
+        } finally {
+            getDatabase().endTransaction();
+        }
     }
 
 
     public void deleteUser(User user) {
-        // the username of the user to be deleted
-        String username = user.getName();
+        SQLiteStatement statement = getStatements().acquire(DELETE_SQL);
 
         // database delete query
-        mDatabase.delete(
-                UserTable.NAME,
-                UserTable.COLS.NAME + "= ?",
-                new String[] { username });
+        StatementCache.bindStringOrNull(statement, 1, user.getName());
+        statement.executeUpdateDelete();
     }
 
 
     /*
-        ContentValues object containing the data from the given User object. This ContentValues object
-        will be used for database operations.
+        Stores the hash of the pin with a new salt and the current cost for the given username,
+        removing the pin itself if it was stored before the pins were hashed.
      */
-    private ContentValues getContentValues(User user) {
-        ContentValues values = new ContentValues();
-        values.put(UserTable.COLS.NAME, user.getName());
-        values.put(UserTable.COLS.PIN, user.getPin());
-        return values;
+    private void writePin(String name, String pin) {
+        byte[] salt = PinHasher.newSalt();
+        int rounds = getPinHasher().getRounds();
+        byte[] hash = PinHasher.hash(pin, salt, rounds);
+
+        SQLiteStatement statement = getStatements().acquire(UPDATE_PIN_SQL);
+        statement.bindBlob(1, salt);
+        statement.bindLong(2, rounds);
+        statement.bindBlob(3, hash);
+        StatementCache.bindStringOrNull(statement, 4, name);
+        statement.executeUpdateDelete();
     }
 
 
     /*
-        Returns the pin of the given username
+        Returns the database, which is opened by the first call. Only the database threads call
+        this, so the main thread never waits for the database to be opened.
      */
-    private String getPin(String name) {
-        // query the database
-        Cursor cursor = mDatabase.query(
-                UserTable.NAME,
-                null,
-                UserTable.COLS.NAME + "= ?",
-                new String[] {name},
-                null,
-                null,
-                null
-        );
-
-        // wrap the cursor
-        UserCursorWrapper userCursor = new UserCursorWrapper(cursor);
-
-        // check if the cursor returned results
-        if (userCursor.getCount() == 0) {
-            return null;
+    private SQLiteDatabase getDatabase() {
+        SQLiteDatabase database = mDatabase;
+        if (database == null) {
+            database = DatabaseOpenHelper.getDatabase(mContext);
+            mDatabase = database;
         }
+        return database;
+    }
 
-        // move the cursor to the first item and return the pin
-        try {
-            cursor.moveToFirst();
-            return userCursor.getUser().getPin();
-        } finally {
-            cursor.close();
+
+    /*
+        Returns the compiled statements of the database, see getDatabase().
+     */
+    private StatementCache getStatements() {
+        StatementCache statements = mStatements;
+        if (statements == null) {
+            statements = DatabaseOpenHelper.getStatements(mContext);
+            mStatements = statements;
         }
+        return statements;
+    }
+
+
+    /*
+        Wraps the content key with a key derived from the pin and a new salt, and stores it for the
+        given username. The key is derived with the same cost as the hash of the pin.
+     */
+    private void storeKey(String name, String pin, SecretKey key) {
+        byte[] salt = PinHasher.newSalt();
+        int rounds = getPinHasher().getRounds();
+        byte[] wrapped = ContentCipher.wrapKey(ContentCipher.deriveKey(pin, salt, rounds), key);
+
+        SQLiteStatement statement = getStatements().acquire(UPDATE_KEY_SQL);
+        statement.bindBlob(1, salt);
+        statement.bindLong(2, rounds);
+        statement.bindBlob(3, wrapped);
+        StatementCache.bindStringOrNull(statement, 4, name);
+        statement.executeUpdateDelete();
+    }
+
+
+    /*
+        Returns the cost of hashing the pins set by setPinHasher().
+     */
+    private static synchronized PinHasher getPinHasher() {
+        return sPinHasher;
     }
 }
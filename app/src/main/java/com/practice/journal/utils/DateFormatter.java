@@ -0,0 +1,124 @@
+/**
+ * Class that formats the dates for JournalUtil without creating a formatter on every call. Since
+ * SimpleDateFormat is not thread-safe each thread gets its own DateFormatter, which keeps one
+ * formatter for each pattern and drops them when the default locale or time zone changes. It also
+ * remembers the formatted day of the last date, so the entries written on the same day share one
+ * day string instead of formatting it again.
+ * @author Aaron Alba
+ */
+
+package com.practice.journal.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TimeZone;
+
+final class DateFormatter {
+    // the formatter of each thread, created the first time the thread formats a date
+    private static final ThreadLocal<DateFormatter> sFormatters = new ThreadLocal<DateFormatter>() {
+        @Override
+        protected DateFormatter initialValue() {
+            return new DateFormatter();
+        }
+    };
+
+    // the formatters of this thread by pattern, all of them for mLocale and mTimeZone
+    private final HashMap<String, SimpleDateFormat> mFormats = new HashMap<>();
+    private Locale mLocale;
+    private TimeZone mTimeZone;
+
+    // used for finding the start and end of a day, in mTimeZone
+    private Calendar mCalendar;
+
+    // reused by every call since the formatters only take Date objects
+    private final Date mDate = new Date();
+
+    // the last formatted day, which starts at mDayStart and ends before mDayEnd
+    private String mDayPattern;
+    private String mDay;
+    private long mDayStart;
+    private long mDayEnd;
+
+    private DateFormatter() {}
+
+
+    /**
+     * Returns the formatter of the calling thread, set up for the current default locale and time zone.
+     * @return The formatter of the thread, which must not be passed to other threads.
+     */
+    static DateFormatter get() {
+        DateFormatter formatter = sFormatters.get();
+        formatter.checkDefaults();
+        return formatter;
+    }
+
+
+    /**
+     * Formats a date with the given pattern.
+     * @param pattern The SimpleDateFormat pattern.
+     * @param millis The date in milliseconds.
+     * @return The formatted date.
+     */
+    String format(String pattern, long millis) {
+        SimpleDateFormat format = mFormats.get(pattern);
+        if (format == null) {
+            format = new SimpleDateFormat(pattern, mLocale);
+            format.setTimeZone(mTimeZone);
+            mFormats.put(pattern, format);
+        }
+
+        mDate.setTime(millis);
+        return format.format(mDate);
+    }
+
+
+    /**
+     * Formats the day of a date with a pattern that has no time fields. The result is reused for
+     * every date on the same day as the last one.
+     * @param pattern The SimpleDateFormat pattern of the day.
+     * @param millis The date in milliseconds.
+     * @return The formatted day.
+     */
+    String formatDay(String pattern, long millis) {
+        if (mDay != null && millis >= mDayStart && millis < mDayEnd && pattern.equals(mDayPattern)) {
+            return mDay;
+        }
+
+        // find the first and last millisecond of the day, which is not always 24 hours long
+        mCalendar.setTimeInMillis(millis);
+        mCalendar.set(Calendar.HOUR_OF_DAY, 0);
+        mCalendar.set(Calendar.MINUTE, 0);
+        mCalendar.set(Calendar.SECOND, 0);
+        mCalendar.set(Calendar.MILLISECOND, 0);
+        long start = mCalendar.getTimeInMillis();
+        mCalendar.add(Calendar.DAY_OF_MONTH, 1);
+
+        mDay = format(pattern, millis);
+        mDayPattern = pattern;
+        mDayStart = start;
+        mDayEnd = mCalendar.getTimeInMillis();
+        return mDay;
+    }
+
+
+    /*
+        Drops the formatters and the remembered day if the default locale or time zone has changed
+        since the last call, so that the dates follow the settings of the device.
+     */
+    private void checkDefaults() {
+        Locale locale = Locale.getDefault();
+        TimeZone timeZone = TimeZone.getDefault();
+        if (locale.equals(mLocale) && timeZone.equals(mTimeZone)) {
+            return;
+        }
+
+        mLocale = locale;
+        mTimeZone = timeZone;
+        mCalendar = Calendar.getInstance(timeZone, locale);
+        mFormats.clear();
+        mDay = null;
+    }
+}
@@ -5,10 +5,22 @@
 
 package com.practice.journal.utils;
 
-import java.text.SimpleDateFormat;
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+
+import com.practice.journal.models.SearchResult;
+
 import java.util.Date;
 
 public final class JournalUtil {
+    // the patterns of the formatted dates, see DateFormatter
+    private static final String DATE_PATTERN = "E dd MMM yyyy";
+    private static final String TIME_PATTERN = "hh:mm a";
+    private static final String MILITARY_TIME_PATTERN = "HH:mm";
+    private static final String DATE_TIME_SEPARATOR = " \t ";
+
     // private constructor to avoid instantiation
     private JournalUtil() {}
 
@@ -20,15 +32,22 @@ public final class JournalUtil {
      * @return The String containing the formatted date time.
      */
     public static String formatDateTime(Date date, boolean isMilitaryTime) {
-        // create the formatter
-        SimpleDateFormat format;
-        if (isMilitaryTime) {
-            format = new SimpleDateFormat("E dd MMM yyyy \t HH:mm");
-        }
-        format = new SimpleDateFormat("E dd MMM yyyy \t hh:mm a");
+        return formatDateTime(date.getTime(), isMilitaryTime);
+    }
+
 
-        // format the date
-        return format.format(date);
+    /**
+     * Applies a format to a date in milliseconds and returns the string date time. The day part is
+     * shared with the last date formatted on the same day, so formatting a list of entries sorted
+     * by date mostly formats only the times.
+     * @param millis The date in milliseconds.
+     * @param isMilitaryTime Tells whether the format should be in military time or am-pm time.
+     * @return The String containing the formatted date time.
+     */
+    public static String formatDateTime(long millis, boolean isMilitaryTime) {
+        DateFormatter formatter = DateFormatter.get();
+        return formatter.formatDay(DATE_PATTERN, millis) + DATE_TIME_SEPARATOR
+                + formatter.format(isMilitaryTime ? MILITARY_TIME_PATTERN : TIME_PATTERN, millis);
     }
 
 
@@ -38,28 +57,51 @@ public final class JournalUtil {
      * @return The String containing the formatted date.
      */
     public static String formatDate(Date date) {
-        // create the formatter
-        SimpleDateFormat format = new SimpleDateFormat("E dd MMM yyyy");
-
-        // format the date
-        return format.format(date);
+        return DateFormatter.get().formatDay(DATE_PATTERN, date.getTime());
     }
 
 
     /**
      * Applies a format to a Date object and returns the string time.
      * @param date The Date object to be formatted.
+     * @param isMilitaryTime Tells whether the format should be in military time or am-pm time.
      * @return The string containing the time from the Date.
      */
     public static String formatTime(Date date, boolean isMilitaryTime) {
-        // create the formatter
-        SimpleDateFormat format;
-        if (isMilitaryTime) {
-            format = new SimpleDateFormat("HH:mm");
+        return DateFormatter.get().format(isMilitaryTime ? MILITARY_TIME_PATTERN : TIME_PATTERN, date.getTime());
+    }
+
+
+    /**
+     * Turns the snippet of a SearchResult into text with the matched terms shown in bold.
+     * @param snippet The snippet with each matched term between MATCH_START and MATCH_END.
+     * @return The text to be shown with the markers removed.
+     */
+    public static CharSequence highlightSnippet(String snippet) {
+        SpannableStringBuilder text = new SpannableStringBuilder();
+        if (snippet == null) {
+            return text;
+        }
+
+        int position = 0;
+        while (position < snippet.length()) {
+            int start = snippet.indexOf(SearchResult.MATCH_START, position);
+            int end = start < 0 ? -1 : snippet.indexOf(SearchResult.MATCH_END, start);
+            if (end < 0) {
+                // no more matched terms
+                text.append(snippet, position, snippet.length());
+                break;
+            }
+
+            // the text before the term, then the term itself in bold
+            text.append(snippet, position, start);
+            int boldStart = text.length();
+            text.append(snippet, start + SearchResult.MATCH_START.length(), end);
+            text.setSpan(new StyleSpan(Typeface.BOLD), boldStart, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+            position = end + SearchResult.MATCH_END.length();
         }
-        format = new SimpleDateFormat("hh:mm a");
 
-        // format the date
-        return format.format(date);
+        return text;
     }
 }
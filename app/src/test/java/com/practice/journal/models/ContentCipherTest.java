@@ -0,0 +1,95 @@
+package com.practice.journal.models;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the chunks and the content key encrypted by ContentCipher are decrypted back
+ * unchanged, and that a chunk that was changed or moved to another entry is refused.
+ */
+public class ContentCipherTest {
+
+    @Before
+    public void setUp() {
+        ContentCipher.setKey(ContentCipher.newContentKey());
+    }
+
+    @After
+    public void tearDown() {
+        ContentCipher.setKey(null);
+    }
+
+    @Test
+    public void roundTrip() {
+        char[] full = new char[8192];
+        Arrays.fill(full, 'x');
+        String[] texts = { "", "hello", "été 日記 😀", new String(full) };
+
+        for (String text : texts) {
+            byte[] data = ContentCipher.encrypt(7, 3, text);
+            assertEquals(text, ContentCipher.decrypt(7, 3, data));
+        }
+    }
+
+    @Test
+    public void usesANewNonceEachTime() {
+        assertFalse(Arrays.equals(ContentCipher.encrypt(1, 0, "same"), ContentCipher.encrypt(1, 0, "same")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refusesChangedChunks() {
+        byte[] data = ContentCipher.encrypt(1, 0, "hello");
+        data[data.length - 1] ^= 1;
+        ContentCipher.decrypt(1, 0, data);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refusesChunksOfAnotherEntry() {
+        ContentCipher.decrypt(2, 0, ContentCipher.encrypt(1, 0, "hello"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refusesChunksAtAnotherSeq() {
+        ContentCipher.decrypt(1, 1, ContentCipher.encrypt(1, 0, "hello"));
+    }
+
+    @Test
+    public void refusesToWorkWhileLocked() {
+        byte[] data = ContentCipher.encrypt(1, 0, "hello");
+        ContentCipher.setKey(null);
+        assertFalse(ContentCipher.isUnlocked());
+
+        try {
+            ContentCipher.decrypt(1, 0, data);
+            fail("decrypted while locked");
+        } catch (IllegalStateException expected) {
+            // the journal is locked
+        }
+        try {
+            ContentCipher.encrypt(1, 0, "hello");
+            fail("encrypted while locked");
+        } catch (IllegalStateException expected) {
+            // the journal is locked
+        }
+    }
+
+    @Test
+    public void wrapsTheContentKey() {
+        byte[] salt = PinHasher.newSalt();
+        SecretKey contentKey = ContentCipher.newContentKey();
+        byte[] wrapped = ContentCipher.wrapKey(ContentCipher.deriveKey("1234", salt, 1000), contentKey);
+
+        SecretKey unwrapped = ContentCipher.unwrapKey(ContentCipher.deriveKey("1234", salt, 1000), wrapped);
+        assertNotNull(unwrapped);
+        assertArrayEquals(contentKey.getEncoded(), unwrapped.getEncoded());
+
+        assertNull(ContentCipher.unwrapKey(ContentCipher.deriveKey("4321", salt, 1000), wrapped));
+    }
+}
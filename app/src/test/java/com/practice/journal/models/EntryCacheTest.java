@@ -0,0 +1,171 @@
+package com.practice.journal.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the copies, the bounds, the write count, the hit and miss counts and the released contents
+ * of EntryCache.
+ */
+public class EntryCacheTest {
+
+    @Test
+    public void returnsCopies() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("title", "content");
+        cache.put(entry);
+
+        // changing the entry given to the cache or returned by it does not change the cached one
+        entry.setTitle("changed");
+        Entry cached = cache.get(entry.getId());
+        assertEquals("title", cached.getTitle());
+        assertFalse(cached.isDirty());
+
+        cached.setContent("changed");
+        assertEquals("content", cache.get(entry.getId()).getContent());
+    }
+
+    @Test
+    public void returnsNullForMissingEntries() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("title", "content");
+        assertNull(cache.get(entry.getId()));
+
+        cache.put(entry);
+        cache.remove(entry.getId());
+        assertNull(cache.get(entry.getId()));
+    }
+
+    @Test
+    public void dropsLeastRecentlyUsedEntries() {
+        EntryCache cache = new EntryCache(2, 1000);
+        Entry first = newEntry("first", null);
+        Entry second = newEntry("second", null);
+        Entry third = newEntry("third", null);
+
+        cache.put(first);
+        cache.put(second);
+        cache.get(first.getId());
+        cache.put(third);
+
+        assertNotNull(cache.get(first.getId()));
+        assertNull(cache.get(second.getId()));
+        assertNotNull(cache.get(third.getId()));
+    }
+
+    @Test
+    public void staysWithinItsSize() {
+        // two bytes per character
+        EntryCache cache = new EntryCache(10, 40);
+        Entry small = newEntry("a", "bcdefghij");
+        Entry big = newEntry("a", repeat('x', 20));
+
+        cache.put(small);
+        assertNotNull(cache.get(small.getId()));
+
+        // an entry bigger than the whole cache is not kept, and the others make room for it
+        cache.put(big);
+        assertNull(cache.get(big.getId()));
+        assertNull(cache.get(small.getId()));
+    }
+
+    @Test
+    public void rejectsEntriesReadBeforeAWrite() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("old", "old");
+
+        long writeCount = cache.getWriteCount();
+        cache.put(newEntry("other", "other"));
+        cache.putLoaded(entry, writeCount);
+        assertNull(cache.get(entry.getId()));
+
+        cache.putLoaded(entry, cache.getWriteCount());
+        assertEquals("old", cache.get(entry.getId()).getTitle());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("title", "content");
+
+        cache.get(entry.getId());
+        cache.put(entry);
+        cache.get(entry.getId());
+        cache.get(entry.getId());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // an entry dropped from the cache is missed again
+        cache.remove(entry.getId());
+        cache.get(entry.getId());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void releasesContents() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("title", "content");
+        cache.put(entry);
+
+        long writeCount = cache.getWriteCount();
+        cache.releaseContents();
+        Entry released = cache.get(entry.getId());
+        assertEquals("title", released.getTitle());
+        assertFalse(released.isContentLoaded());
+        try {
+            released.getContent();
+            fail("a released content was returned");
+        } catch (IllegalStateException expected) {
+            // read it again with EntryStash.openContent()
+        }
+
+        // the content read again from the database is added back
+        cache.putContent(entry.getId(), "content", writeCount);
+        Entry loaded = cache.get(entry.getId());
+        assertTrue(loaded.isContentLoaded());
+        assertEquals("content", loaded.getContent());
+        assertFalse(loaded.isDirty());
+    }
+
+    @Test
+    public void rejectsContentsReadBeforeAWrite() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("title", "content");
+        cache.put(entry);
+        cache.releaseContents();
+
+        long writeCount = cache.getWriteCount();
+        cache.put(newEntry("other", "other"));
+        cache.putContent(entry.getId(), "stale", writeCount);
+        assertFalse(cache.get(entry.getId()).isContentLoaded());
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        EntryCache cache = new EntryCache(10, 1000);
+        Entry entry = newEntry("title", "content");
+        cache.put(entry);
+
+        long writeCount = cache.getWriteCount();
+        cache.clear();
+        assertNull(cache.get(entry.getId()));
+        assertNotEquals(writeCount, cache.getWriteCount());
+    }
+
+    private static Entry newEntry(String title, String content) {
+        Entry entry = new Entry();
+        entry.setTitle(title);
+        entry.setContent(content);
+        return entry;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,51 @@
+package com.practice.journal.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the hashes of PinHasher with a small number of rounds, the cost is only calibrated on
+ * a device.
+ */
+public class PinHasherTest {
+    private static final int ROUNDS = 1000;
+
+    @Test
+    public void verifiesTheRightPin() {
+        byte[] salt = PinHasher.newSalt();
+        byte[] hash = PinHasher.hash("1234", salt, ROUNDS);
+
+        assertTrue(PinHasher.verify("1234", salt, ROUNDS, hash));
+        assertFalse(PinHasher.verify("1235", salt, ROUNDS, hash));
+        assertFalse(PinHasher.verify("1234", salt, ROUNDS + 1, hash));
+        assertFalse(PinHasher.verify("1234", PinHasher.newSalt(), ROUNDS, hash));
+    }
+
+    @Test
+    public void usesTheSalt() {
+        byte[] salt = PinHasher.newSalt();
+        byte[] other = PinHasher.newSalt();
+
+        assertFalse(Arrays.equals(salt, other));
+        assertArrayEquals(PinHasher.hash("1234", salt, ROUNDS), PinHasher.hash("1234", salt, ROUNDS));
+        assertFalse(Arrays.equals(PinHasher.hash("1234", salt, ROUNDS),
+                PinHasher.hash("1234", other, ROUNDS)));
+    }
+
+    @Test
+    public void derivesTheRequestedLength() {
+        byte[] salt = PinHasher.newSalt();
+        assertEquals(16, PinHasher.derive("1234", salt, ROUNDS, 16).length);
+        assertEquals(32, PinHasher.derive("1234", salt, ROUNDS, 32).length);
+    }
+
+    @Test
+    public void rehashesCheapHashes() {
+        PinHasher hasher = new PinHasher(250, 10000);
+        assertTrue(hasher.needsRehash(9999));
+        assertFalse(hasher.needsRehash(10000));
+    }
+}
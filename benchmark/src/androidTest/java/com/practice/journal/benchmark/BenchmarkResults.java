@@ -0,0 +1,86 @@
+package com.practice.journal.benchmark;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the results of a benchmark as a JSON file, one file per benchmark class, so that the
+ * results of different runs can be compared by a script. The files are written to the
+ * additionalTestOutputDir given by the Gradle plugin, which copies them to
+ * benchmark/build/outputs/connected_android_test_additional_output, or else to the external
+ * files directory of the test package on the device.
+ */
+final class BenchmarkResults {
+    private static final String TAG = "JournalBenchmark";
+
+    private BenchmarkResults() {}
+
+    /**
+     * Returns the runs of a timing with their minimum, median and maximum.
+     */
+    static JSONObject summarize(long[] runs) throws JSONException {
+        long[] sorted = runs.clone();
+        Arrays.sort(sorted);
+
+        JSONArray values = new JSONArray();
+        for (long run : runs) {
+            values.put(run);
+        }
+        return new JSONObject()
+                .put("runs", values)
+                .put("min", sorted[0])
+                .put("median", sorted[sorted.length / 2])
+                .put("max", sorted[sorted.length - 1]);
+    }
+
+    /**
+     * Writes the metrics of the named benchmark with the device they were measured on.
+     */
+    static void write(String name, JSONObject metrics) throws JSONException, IOException {
+        JSONObject result = new JSONObject()
+                .put("benchmark", name)
+                .put("timestamp", System.currentTimeMillis())
+                .put("device", new JSONObject()
+                        .put("manufacturer", Build.MANUFACTURER)
+                        .put("model", Build.MODEL)
+                        .put("sdk", Build.VERSION.SDK_INT))
+                .put("metrics", metrics);
+        String json = result.toString(2);
+
+        File file = new File(getOutputDir(), name + ".json");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            writer.write(json);
+        } finally {
+            writer.close();
+        }
+        Log.i(TAG, "wrote " + file + "\n" + json);
+    }
+
+    private static File getOutputDir() {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String dir = arguments.getString("additionalTestOutputDir");
+        if (dir != null) {
+            return new File(dir);
+        }
+
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        return context.getExternalFilesDir(null);
+    }
+}
@@ -0,0 +1,112 @@
+package com.practice.journal.benchmark;
+
+import android.os.SystemClock;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the installed debug build of the journal from the benchmarks: clears and seeds its data
+ * through the debug SeedReceiver, starts it cold, logs in and reads the timings that the system
+ * reports for it.
+ */
+final class JournalApp {
+    static final String PACKAGE = "com.practice.journal";
+    static final String PIN = "1234";
+
+    // the number of entries in the seeded journal
+    static final int SEEDED_ENTRIES = 10000;
+
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    private static final Pattern TOTAL_TIME = Pattern.compile("TotalTime: (\\d+)");
+    private static final Pattern SEED_RESULT = Pattern.compile("result=(\\d+)");
+
+    // the journal is seeded once for all of the benchmarks of a run
+    private static boolean sSeeded;
+
+    private final UiDevice mDevice = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
+
+    UiDevice getDevice() {
+        return mDevice;
+    }
+
+    /**
+     * Replaces the data of the app with a registered user and SEEDED_ENTRIES entries, unless that
+     * was already done in this run, and stops the app so the next start is cold.
+     */
+    void prepare() throws IOException {
+        if (!sSeeded) {
+            shell("pm clear " + PACKAGE);
+
+            // -f 32 delivers the broadcast to the app although it is stopped
+            String output = shell("am broadcast -f 32 -n " + PACKAGE + "/.debug.SeedReceiver"
+                    + " --ei count " + SEEDED_ENTRIES + " --es pin " + PIN);
+            Matcher result = SEED_RESULT.matcher(output);
+            assertTrue("seeding failed: " + output,
+                    result.find() && Integer.parseInt(result.group(1)) == SEEDED_ENTRIES);
+            sSeeded = true;
+        }
+        stop();
+    }
+
+    /**
+     * Stops the app, which also ends its login session.
+     */
+    void stop() throws IOException {
+        shell("am force-stop " + PACKAGE);
+    }
+
+    /**
+     * Starts the login screen and waits for its first frame.
+     * @return the start time reported by the activity manager in milliseconds.
+     */
+    long startLogin() throws IOException {
+        String output = shell("am start -W -n " + PACKAGE + "/.activities.JournalLoginActivity");
+        Matcher totalTime = TOTAL_TIME.matcher(output);
+        assertTrue("no start time in: " + output, totalTime.find());
+        return Long.parseLong(totalTime.group(1));
+    }
+
+    /**
+     * Types the pin on the login screen and waits for the first entry of the list to be shown.
+     * @return the time from the tap on the login button to the first entry in milliseconds.
+     */
+    long login() {
+        waitFor(By.res(PACKAGE, "login_password_field")).setText(PIN);
+        UiObject2 button = waitFor(By.res(PACKAGE, "login_button"));
+
+        long start = SystemClock.uptimeMillis();
+        button.click();
+        waitFor(By.res(PACKAGE, "entry_title"));
+        return SystemClock.uptimeMillis() - start;
+    }
+
+    /**
+     * Waits for a view of the app to be shown.
+     * @param selector The view.
+     * @return the view, the benchmark fails if it is not shown in time.
+     */
+    UiObject2 waitFor(BySelector selector) {
+        UiObject2 object = mDevice.wait(Until.findObject(selector), TIMEOUT_MILLIS);
+        assertNotNull("not shown: " + selector, object);
+        return object;
+    }
+
+    /**
+     * Runs a shell command as the shell user and returns its output.
+     */
+    String shell(String command) throws IOException {
+        return mDevice.executeShellCommand(command);
+    }
+}
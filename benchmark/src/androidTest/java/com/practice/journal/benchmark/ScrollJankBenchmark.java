@@ -0,0 +1,84 @@
+package com.practice.journal.benchmark;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiObject2;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the frame timing while flinging down the seeded list of entries, which pages in more
+ * entries as it goes. The frames are counted by the system, dumpsys gfxinfo is reset once the list
+ * is shown and read after the flings, so only the frames of the scrolling are counted.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollJankBenchmark {
+    private static final int FLINGS = 30;
+
+    private static final Pattern TOTAL_FRAMES = Pattern.compile("Total frames rendered: (\\d+)");
+    private static final Pattern JANKY_FRAMES = Pattern.compile("Janky frames: (\\d+)");
+    private static final int[] PERCENTILES = {50, 90, 95, 99};
+
+    private final JournalApp mApp = new JournalApp();
+
+    @Before
+    public void setUp() throws Exception {
+        mApp.prepare();
+        mApp.startLogin();
+        mApp.login();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mApp.stop();
+    }
+
+    @Test
+    public void flingList() throws Exception {
+        UiObject2 list = mApp.waitFor(By.res(JournalApp.PACKAGE, "entry_recycler_view"));
+        // keeps the gestures clear of the system bars
+        list.setGestureMargin(mApp.getDevice().getDisplayHeight() / 10);
+
+        mApp.shell("dumpsys gfxinfo " + JournalApp.PACKAGE + " reset");
+        for (int i = 0; i < FLINGS; i++) {
+            list.fling(Direction.DOWN);
+        }
+        mApp.getDevice().waitForIdle();
+        String output = mApp.shell("dumpsys gfxinfo " + JournalApp.PACKAGE);
+
+        long total = find(TOTAL_FRAMES, output);
+        long janky = find(JANKY_FRAMES, output);
+        assertTrue("no frames were rendered: " + output, total > 0);
+
+        JSONObject metrics = new JSONObject()
+                .put("entries", JournalApp.SEEDED_ENTRIES)
+                .put("flings", FLINGS)
+                .put("totalFrames", total)
+                .put("jankyFrames", janky)
+                .put("jankyPercent", 100.0 * janky / total);
+        for (int percentile : PERCENTILES) {
+            Pattern pattern = Pattern.compile(percentile + "th percentile: (\\d+)ms");
+            metrics.put("frameTime" + percentile + "thMs", find(pattern, output));
+        }
+        BenchmarkResults.write("ScrollJankBenchmark", metrics);
+    }
+
+    /*
+        Returns the number matched by the first group of the pattern in the dumpsys output.
+     */
+    private static long find(Pattern pattern, String output) {
+        Matcher matcher = pattern.matcher(output);
+        assertTrue("no " + pattern + " in: " + output, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,46 @@
+package com.practice.journal.benchmark;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the cold start of the journal up to the first frame of the list of entries: the start
+ * of the login screen from a stopped process as reported by the activity manager, and the time
+ * from the tap on the login button to the first entry of the seeded list, which includes checking
+ * the pin and the first page of the list. The time spent typing the pin is not counted.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int RUNS = 10;
+
+    private final JournalApp mApp = new JournalApp();
+
+    @Before
+    public void setUp() throws Exception {
+        mApp.prepare();
+    }
+
+    @Test
+    public void coldStartToList() throws Exception {
+        long[] startLogin = new long[RUNS];
+        long[] login = new long[RUNS];
+        long[] total = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            mApp.stop();
+            startLogin[i] = mApp.startLogin();
+            login[i] = mApp.login();
+            total[i] = startLogin[i] + login[i];
+        }
+        mApp.stop();
+
+        BenchmarkResults.write("StartupBenchmark", new JSONObject()
+                .put("entries", JournalApp.SEEDED_ENTRIES)
+                .put("startLoginMs", BenchmarkResults.summarize(startLogin))
+                .put("loginToListMs", BenchmarkResults.summarize(login))
+                .put("coldStartToListMs", BenchmarkResults.summarize(total)));
+    }
+}
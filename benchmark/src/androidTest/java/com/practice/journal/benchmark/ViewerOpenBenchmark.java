@@ -0,0 +1,97 @@
+package com.practice.journal.benchmark;
+
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures opening an entry of the seeded list in the ViewerActivity: the time to its first frame
+ * as logged by the activity manager, and the time from the tap on the entry until its content is
+ * shown, which also includes reading and decrypting the content.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewerOpenBenchmark {
+    private static final int RUNS = 10;
+
+    // e.g. "Displayed com.practice.journal/.activities.ViewerActivity: +1s23ms"
+    private static final Pattern DISPLAYED = Pattern.compile(
+            "Displayed " + Pattern.quote(JournalApp.PACKAGE + "/.activities.ViewerActivity")
+                    + ": \\+(?:(\\d+)s)?(\\d+)ms");
+
+    private static final BySelector CONTENT = By.res(JournalApp.PACKAGE, "content_viewer").textContains("xxxxxxx");
+    private static final BySelector ENTRY = By.res(JournalApp.PACKAGE, "entry_title");
+
+    private final JournalApp mApp = new JournalApp();
+
+    @Before
+    public void setUp() throws Exception {
+        mApp.prepare();
+        mApp.startLogin();
+        mApp.login();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mApp.stop();
+    }
+
+    @Test
+    public void openEntry() throws Exception {
+        long[] displayed = new long[RUNS];
+        long[] contentShown = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            mApp.shell("logcat -c");
+
+            long start = SystemClock.uptimeMillis();
+            mApp.waitFor(ENTRY).click();
+            mApp.waitFor(CONTENT);
+            contentShown[i] = SystemClock.uptimeMillis() - start;
+            displayed[i] = readDisplayed();
+
+            mApp.getDevice().pressBack();
+            mApp.waitFor(ENTRY);
+        }
+
+        BenchmarkResults.write("ViewerOpenBenchmark", new JSONObject()
+                .put("displayedMs", BenchmarkResults.summarize(displayed))
+                .put("contentShownMs", BenchmarkResults.summarize(contentShown)));
+    }
+
+    /*
+        Returns the time to the first frame of the last ViewerActivity logged by the activity
+        manager, which logs it as ActivityTaskManager from API 29 and as ActivityManager before.
+     */
+    private long readDisplayed() throws Exception {
+        String output = "";
+        // the line is logged once the frame is drawn, which may be just after the content shows
+        for (int attempt = 0; attempt < 10; attempt++) {
+            output = mApp.shell("logcat -d -s ActivityTaskManager:I ActivityManager:I");
+            Matcher matcher = DISPLAYED.matcher(output);
+            if (matcher.find()) {
+                long millis;
+                do {
+                    String seconds = matcher.group(1);
+                    millis = (seconds != null ? Long.parseLong(seconds) * 1000 : 0)
+                            + Long.parseLong(matcher.group(2));
+                } while (matcher.find());
+                return millis;
+            }
+            SystemClock.sleep(100);
+        }
+        fail("no Displayed line in: " + output);
+        return 0;
+    }
+}